@@ -0,0 +1,138 @@
+package de.labystudio.desktopmodules.spotify.harness;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.LyricsProvider;
+import de.labystudio.desktopmodules.spotify.api.lyrics.LyricsTimeoutException;
+import de.labystudio.desktopmodules.spotify.api.lyrics.metrics.LatencyHistogram;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.SourceHealth;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft.CrintSoftSource;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.LrcLib;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.Music163Source;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays track changes against the stand-in server and reports the throughput and latency of the lookups.
+ * <p>
+ * Options are passed as key=value arguments:
+ * tracks, threads, latency, jitter, errorRate, hitRate, repeatRate, concurrent, hedgeDelay, timeout, seed
+ *
+ * @author LabyStudio
+ */
+public class LoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator == -1) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        int amount = Integer.parseInt(options.getOrDefault("tracks", "5000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        double repeatRate = Double.parseDouble(options.getOrDefault("repeatRate", "0.2"));
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+
+        StandInServer server = new StandInServer(64);
+        server.setLatency(Long.parseLong(options.getOrDefault("latency", "50")));
+        server.setLatencyJitter(Long.parseLong(options.getOrDefault("jitter", "25")));
+        server.setErrorRate(Double.parseDouble(options.getOrDefault("errorRate", "0.01")));
+        server.setHitRate(Double.parseDouble(options.getOrDefault("hitRate", "0.8")));
+        server.start();
+
+        // Point all sources to the stand-in server
+        List<LyricsSource> sources = Arrays.asList(
+                new LrcLib(server.getUrl("lrclib/api/")),
+                new Music163Source(server.getUrl("music163/api/")),
+                new CrintSoftSource(server.getUrl("crintsoft/"))
+        );
+        LyricsProvider provider = new LyricsProvider(sources, null);
+        provider.setConcurrent(Boolean.parseBoolean(options.getOrDefault("concurrent", "true")));
+        provider.setHedgeDelay(Long.parseLong(options.getOrDefault("hedgeDelay", String.valueOf(LyricsProvider.DEFAULT_HEDGE_DELAY))));
+        provider.setTimeout(Long.parseLong(options.getOrDefault("timeout", String.valueOf(LyricsProvider.DEFAULT_TIMEOUT))));
+
+        // Create the track changes, some tracks are played again
+        List<Track> played = new ArrayList<>();
+        Track[] trackChanges = new Track[amount];
+        for (int i = 0; i < amount; i++) {
+            if (!played.isEmpty() && random.nextDouble() < repeatRate) {
+                trackChanges[i] = played.get(random.nextInt(played.size()));
+                continue;
+            }
+
+            int duration = 120 + random.nextInt(240);
+            Track track = new Track("harness" + i, "Song " + i, "Artist " + random.nextInt(500), duration * 1000);
+            server.addTrack(i, track.getName(), track.getArtist(), duration);
+
+            played.add(track);
+            trackChanges[i] = track;
+        }
+
+        System.out.printf("Replaying %d track changes (%d distinct) with %d threads%n", amount, played.size(), threads);
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        AtomicLong found = new AtomicLong();
+        AtomicLong timeouts = new AtomicLong();
+        AtomicLong maxLatency = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+
+        for (Track track : trackChanges) {
+            executor.execute(() -> {
+                long requestStart = System.nanoTime();
+                Lyrics lyrics = null;
+                try {
+                    lyrics = provider.request(track);
+                } catch (LyricsTimeoutException e) {
+                    timeouts.incrementAndGet();
+                }
+                long duration = System.nanoTime() - requestStart;
+
+                histogram.record(duration);
+                maxLatency.accumulateAndGet(duration, Math::max);
+                if (lyrics != null) {
+                    found.incrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        long elapsed = System.nanoTime() - start;
+
+        // Report the results
+        double seconds = elapsed / 1e9;
+        System.out.printf("Duration:   %.2f s%n", seconds);
+        System.out.printf("Throughput: %.1f lookups/s%n", amount / seconds);
+        System.out.printf("Found:      %d of %d (%.1f%%)%n", found.get(), amount, found.get() * 100.0 / amount);
+        System.out.printf("Timeouts:   %d%n", timeouts.get());
+        System.out.printf("Latency:    p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99), maxLatency.get() / 1e6);
+        System.out.printf("Memory cache: %d hits, %d misses%n", provider.getMemoryCache().getHits(), provider.getMemoryCache().getMisses());
+
+        for (LyricsSource source : provider.getSources()) {
+            SourceHealth health = source.getHealth();
+            System.out.printf("%-16s requests %6d, hits %6d, misses %6d, errors %5d, cut off %5d, p50 %.1f ms, p99 %.1f ms, circuit %s%n",
+                    source.getName(), health.getRequests(), health.getHits(), health.getMisses(), health.getErrors(), health.getDeadlineExceeded(),
+                    health.getLatencyHistogram().getPercentile(50), health.getLatencyHistogram().getPercentile(99), health.getState());
+        }
+
+        provider.shutdown();
+        server.stop();
+    }
+}
@@ -0,0 +1,425 @@
+package de.labystudio.desktopmodules.spotify.harness;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft.CrintSoftCodec;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Artist;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.LRC;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.LyricResponse;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.QueryResponse;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local HTTP server that emulates the Lrclib, Music163 and Crintsoft endpoints.
+ * <p>
+ * The server only knows the tracks of its catalog. Each source knows a track with the probability of the
+ * hit rate, requests fail with the probability of the error rate and every response is delayed by the
+ * configured latency. The lyrics are generated from the id of the track.
+ *
+ * @author LabyStudio
+ */
+public class StandInServer {
+
+    private static final Gson GSON = new Gson();
+
+    private static final String[] WORDS = ("oh la na hey we you light night run away home fire sky over under "
+            + "again never always heart road rain sun moon dance slow fast open door").split(" ");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entriesByName = new ConcurrentHashMap<>();
+
+    private volatile long latency = 50;
+    private volatile long latencyJitter = 25;
+    private volatile double errorRate;
+    private volatile double hitRate = 0.8;
+
+    /**
+     * Create the server on a free local port
+     *
+     * @param threads Amount of threads that handle the requests
+     * @throws IOException If the server can't be bound
+     */
+    public StandInServer(int threads) throws IOException {
+        // Headers and body are written separately, without this every response waits for the delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Stand-in Server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+
+        this.server.createContext("/lrclib/api/get", this.handler(this::handleLrcLibGet));
+        this.server.createContext("/lrclib/api/search", this.handler(this::handleLrcLibSearch));
+        this.server.createContext("/music163/api/search/get", this.handler(this::handleMusic163Search));
+        this.server.createContext("/music163/api/song/lyric", this.handler(this::handleMusic163Lyric));
+        this.server.createContext("/crintsoft/searchlyrics.htm", this.handler(this::handleCrintSoftSearch));
+        this.server.createContext("/crintsoft/l/", this.handler(this::handleCrintSoftLyrics));
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Add a track to the catalog of the server
+     *
+     * @param id       Unique id of the track, used as seed of the lyrics
+     * @param name     Name of the track
+     * @param artist   Artist of the track
+     * @param duration Duration in seconds
+     */
+    public void addTrack(long id, String name, String artist, int duration) {
+        Entry entry = new Entry(id, name, artist, duration);
+        this.entriesById.put(id, entry);
+        this.entriesByName.put(nameKey(name, artist), entry);
+    }
+
+    /**
+     * Get the base URL of an emulated source
+     *
+     * @param path The path of the source, e.g. "lrclib/api/"
+     * @return The URL of the path on this server
+     */
+    public String getUrl(String path) {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort() + "/" + path;
+    }
+
+    private void handleLrcLibGet(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        Entry entry = this.find("lrclib", query.get("track_name"), query.get("artist_name"));
+
+        if (entry == null) {
+            respond(exchange, 404, "application/json", "{\"code\":404,\"name\":\"TrackNotFound\"}");
+            return;
+        }
+
+        respond(exchange, 200, "application/json", GSON.toJson(entry.toLrcLibSong()));
+    }
+
+    private void handleLrcLibSearch(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        Entry entry = this.find("lrclib", query.get("track_name"), query.get("artist_name"));
+
+        // Similar songs that don't match the request
+        de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song[] songs
+                = new de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song[entry == null ? 4 : 5];
+        for (int i = 0; i < 4; i++) {
+            songs[i] = new Entry(i, query.get("track_name") + " (Cover " + i + ")", "Someone Else", 180).toLrcLibSong();
+        }
+        if (entry != null) {
+            songs[4] = entry.toLrcLibSong();
+        }
+
+        respond(exchange, 200, "application/json", GSON.toJson(songs));
+    }
+
+    private void handleMusic163Search(HttpExchange exchange) throws IOException {
+        String search = parseQuery(exchange).get("s");
+
+        // The query is the track name followed by the artist
+        Entry entry = null;
+        for (int separator = search.indexOf(' '); separator != -1 && entry == null; separator = search.indexOf(' ', separator + 1)) {
+            entry = this.find("music163", search.substring(0, separator), search.substring(separator + 1));
+        }
+
+        QueryResponse response = new QueryResponse();
+        response.result = new Result();
+        response.result.songs = new de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song[entry == null ? 0 : 1];
+        if (entry != null) {
+            response.result.songs[0] = entry.toMusic163Song();
+        }
+
+        respond(exchange, 200, "application/json", GSON.toJson(response));
+    }
+
+    private void handleMusic163Lyric(HttpExchange exchange) throws IOException {
+        Entry entry = this.entriesById.get(Long.parseLong(parseQuery(exchange).get("id")));
+
+        LyricResponse response = new LyricResponse();
+        if (entry != null) {
+            response.lrc = new LRC();
+            response.lrc.lyric = entry.getLyrics();
+        }
+
+        respond(exchange, 200, "application/json", GSON.toJson(response));
+    }
+
+    private void handleCrintSoftSearch(HttpExchange exchange) throws IOException {
+        byte[] request = readFully(exchange.getRequestBody());
+
+        // Decrypt the query behind the header
+        int offset = CrintSoftCodec.HEADER_LENGTH;
+        byte key = request.length > 1 ? request[1] : 0;
+        for (int i = offset; i < request.length; i++) {
+            request[i] ^= key;
+        }
+        String query = new String(request, Math.min(offset, request.length), Math.max(request.length - offset, 0), StandardCharsets.UTF_8);
+        Entry entry = this.find("crintsoft", attribute(query, "title"), attribute(query, "artist"));
+
+        // Null delimited records starting with the server url
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        writeRecord(payload, "server_url");
+        writeRecord(payload, this.getUrl("crintsoft/"));
+        if (entry != null) {
+            writeRecord(payload, "synthetic/" + entry.id + ".lrc");
+            writeRecord(payload, "artist");
+            writeRecord(payload, entry.artist);
+            writeRecord(payload, "title");
+            writeRecord(payload, entry.name);
+        }
+
+        // Encrypt the payload behind the header
+        byte responseKey = (byte) ThreadLocalRandom.current().nextInt(1, 127);
+        byte[] plain = payload.toByteArray();
+        byte[] response = new byte[CrintSoftCodec.HEADER_LENGTH + plain.length];
+        response[0] = 0x02;
+        response[1] = responseKey;
+        for (int i = 0; i < plain.length; i++) {
+            response[CrintSoftCodec.HEADER_LENGTH + i] = (byte) (plain[i] ^ responseKey);
+        }
+
+        respond(exchange, 200, "application/octet-stream", response);
+    }
+
+    private void handleCrintSoftLyrics(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String file = path.substring(path.lastIndexOf('/') + 1);
+
+        Entry entry = null;
+        if (file.endsWith(".lrc")) {
+            try {
+                entry = this.entriesById.get(Long.parseLong(file.substring(0, file.length() - 4)));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        if (entry == null) {
+            respond(exchange, 404, "text/plain", "Not found");
+            return;
+        }
+
+        respond(exchange, 200, "text/plain; charset=utf-8", entry.getLyrics());
+    }
+
+    /**
+     * Find a track of the catalog that is known by the given source
+     *
+     * @param source Name of the source
+     * @param name   Requested track name
+     * @param artist Requested artist
+     * @return The track or null if the source doesn't know it
+     */
+    private Entry find(String source, String name, String artist) {
+        if (name == null || artist == null) {
+            return null;
+        }
+
+        Entry entry = this.entriesByName.get(nameKey(name, artist.trim()));
+        if (entry == null) {
+            return null;
+        }
+
+        // Decide by the track and source, so repeated requests get the same answer
+        Random random = new Random(entry.id * 31 + source.hashCode());
+        return random.nextDouble() < this.hitRate ? entry : null;
+    }
+
+    private HttpHandler handler(HttpHandler delegate) {
+        return exchange -> {
+            try {
+                // Simulate the network and processing time
+                long delay = this.latency + (this.latencyJitter > 0 ? ThreadLocalRandom.current().nextLong(-this.latencyJitter, this.latencyJitter + 1) : 0);
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+
+                // The request body has to be consumed before the response is written
+                if (ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+                    readFully(exchange.getRequestBody());
+                    respond(exchange, 500, "text/plain", "Internal Server Error");
+                    return;
+                }
+
+                delegate.handle(exchange);
+            } catch (Exception e) {
+                e.printStackTrace();
+                respond(exchange, 500, "text/plain", String.valueOf(e));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+        respond(exchange, code, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int code, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator != -1) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static String attribute(String xml, String name) {
+        String prefix = " " + name + "=\"";
+        int start = xml.indexOf(prefix);
+        if (start == -1) {
+            return null;
+        }
+        start += prefix.length();
+
+        int end = xml.indexOf("\" ", start);
+        return end == -1 ? null : xml.substring(start, end);
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        out.write(0);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String nameKey(String name, String artist) {
+        return name.toLowerCase(Locale.ROOT) + '\0' + artist.toLowerCase(Locale.ROOT);
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public void setLatencyJitter(long latencyJitter) {
+        this.latencyJitter = latencyJitter;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    /**
+     * A track of the catalog
+     */
+    private static class Entry {
+
+        private final long id;
+        private final String name;
+        private final String artist;
+        private final int duration;
+
+        private volatile String lyrics;
+
+        private Entry(long id, String name, String artist, int duration) {
+            this.id = id;
+            this.name = name;
+            this.artist = artist;
+            this.duration = duration;
+        }
+
+        /**
+         * Generate synthetic lyrics over the duration of the track
+         *
+         * @return The lyrics in LRC format
+         */
+        private String getLyrics() {
+            if (this.lyrics == null) {
+                Random random = new Random(this.id);
+                StringBuilder builder = new StringBuilder("[ti:").append(this.name).append("]\n[ar:").append(this.artist).append("]\n");
+
+                for (long offset = 5000 + random.nextInt(10000); offset < this.duration * 1000L; offset += 2000 + random.nextInt(3000)) {
+                    builder.append(String.format("[%02d:%02d.%02d]", offset / 60000, offset / 1000 % 60, offset % 1000 / 10));
+                    for (int i = 3 + random.nextInt(6); i > 0; i--) {
+                        builder.append(WORDS[random.nextInt(WORDS.length)]).append(i == 1 ? "\n" : " ");
+                    }
+                }
+
+                this.lyrics = builder.toString();
+            }
+            return this.lyrics;
+        }
+
+        private de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song toLrcLibSong() {
+            de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song song
+                    = new de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song();
+            song.id = (int) this.id;
+            song.name = this.name;
+            song.artistName = this.artist;
+            song.albumName = "Stand-in";
+            song.duration = this.duration;
+            song.syncedLyrics = this.getLyrics();
+            return song;
+        }
+
+        private de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song toMusic163Song() {
+            de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song song
+                    = new de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song();
+            song.id = this.id;
+            song.name = this.name;
+            song.artists = new Artist[]{new Artist()};
+            song.artists[0].name = this.artist;
+            song.duration = this.duration * 1000L;
+            return song;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Access to the synthetic benchmark corpus in the resources
+ *
+ * @author LabyStudio
+ */
+public class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Read a corpus file
+     *
+     * @param name Name of the file in the corpus directory
+     * @return The file content
+     * @throws IOException If the file doesn't exist
+     */
+    public static byte[] read(String name) throws IOException {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing corpus file " + name);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Read a corpus file as text
+     *
+     * @param name Name of the file in the corpus directory
+     * @return The file content
+     * @throws IOException If the file doesn't exist
+     */
+    public static String readString(String name) throws IOException {
+        return new String(read(name), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft.CrintSoftCodec;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft.CrintSoftTrack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query assembly and response decoding of the Crintsoft search protocol
+ *
+ * @author LabyStudio
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CrintSoftBenchmark {
+
+    private static final String SEARCH_QUERY = "<?xml version='1.0' encoding='utf-8' ?><searchV1 artist=\"%s\" title=\"%s\" OnlyMatched=\"1\" client=\"MiniLyrics\" RequestPage='0'/>";
+    private static final String LYRICS_URL = "http://localhost/l/";
+
+    private byte[] response;
+    private byte[] buffer;
+
+    @Setup
+    public void setup() {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        write(payload, "server_url");
+        write(payload, "http://localhost/");
+
+        // 20 search results with some additional attributes
+        for (int i = 0; i < 20; i++) {
+            write(payload, "synthetic/artist/song_" + i + ".lrc");
+            write(payload, "artist");
+            write(payload, "Synthetic Artist");
+            write(payload, "title");
+            write(payload, "Song " + i + " (Remastered)");
+            write(payload, "album");
+            write(payload, "Benchmark Corpus");
+            write(payload, "uploader");
+            write(payload, "generated");
+        }
+
+        // Encrypt the payload behind the header
+        byte key = 0x2A;
+        byte[] plain = payload.toByteArray();
+        this.response = new byte[CrintSoftCodec.HEADER_LENGTH + plain.length];
+        this.response[0] = 0x02;
+        this.response[1] = key;
+        for (int i = 0; i < plain.length; i++) {
+            this.response[CrintSoftCodec.HEADER_LENGTH + i] = (byte) (plain[i] ^ key);
+        }
+
+        this.buffer = new byte[this.response.length];
+    }
+
+    @Benchmark
+    public byte[] encodeQuery() throws NoSuchAlgorithmException {
+        String query = String.format(SEARCH_QUERY, "Synthetic Artist", "Song 19");
+        return CrintSoftCodec.encodeQuery(query.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public List<CrintSoftTrack> decodeResponse() {
+        // The response is decrypted in place
+        System.arraycopy(this.response, 0, this.buffer, 0, this.response.length);
+        CrintSoftCodec.decrypt(this.buffer);
+        return CrintSoftCodec.decodeTracks(this.buffer, LYRICS_URL);
+    }
+
+    private static void write(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        out.write(0);
+    }
+}
@@ -0,0 +1,104 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import com.google.gson.stream.JsonReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.match.TrackMatcher;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.ResponseReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.SongReader;
+import de.labystudio.spotifyapi.model.Track;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming JSON parsing of the Lrclib and Music163 responses.
+ * The matching song is always the last one of a search response, so every candidate is scored like in the sources.
+ *
+ * @author LabyStudio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonModelBenchmark {
+
+    /**
+     * The requested tracks, the durations of the corpus differ between the sources
+     */
+    private static final Track LRCLIB_TARGET = new Track("lrclib", "Target Song", "Synthetic Artist", 219000);
+    private static final Track MUSIC163_TARGET = new Track("music163", "Target Song", "Synthetic Artist", 200029);
+
+    private TrackMatcher lrclibMatcher;
+    private TrackMatcher music163Matcher;
+
+    private byte[] lrclibSearch;
+    private byte[] lrclibGet;
+    private byte[] music163Search;
+    private byte[] music163Lyric;
+
+    @Setup
+    public void setup() throws IOException {
+        this.lrclibSearch = Corpus.read("lrclib-search.json");
+        this.lrclibGet = Corpus.read("lrclib-get.json");
+        this.music163Search = Corpus.read("music163-search.json");
+        this.music163Lyric = Corpus.read("music163-lyric.json");
+
+        this.lrclibMatcher = TrackMatcher.of(LRCLIB_TARGET);
+        this.music163Matcher = TrackMatcher.of(MUSIC163_TARGET);
+    }
+
+    @Benchmark
+    public Song lrclibSearch() throws IOException {
+        TrackMatcher matcher = this.lrclibMatcher;
+        return SongReader.findBest(reader(this.lrclibSearch),
+                song -> song.name == null || song.artistName == null ? 0
+                        : matcher.score(song.name, song.artistName, song.duration * 1000L),
+                TrackMatcher.MIN_SCORE, TrackMatcher.EXACT_SCORE);
+    }
+
+    @Benchmark
+    public Song lrclibGet() throws IOException {
+        return SongReader.read(reader(this.lrclibGet), null);
+    }
+
+    @Benchmark
+    public de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song music163Search() throws IOException {
+        TrackMatcher matcher = this.music163Matcher;
+        return ResponseReader.findBestSong(reader(this.music163Search),
+                song -> score(song, matcher),
+                TrackMatcher.MIN_SCORE, TrackMatcher.EXACT_SCORE);
+    }
+
+    @Benchmark
+    public String music163Lyric() throws IOException {
+        return ResponseReader.readLyric(reader(this.music163Lyric));
+    }
+
+    /**
+     * Same scoring of all credited artists as the Music163 source
+     */
+    private static double score(de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song song, TrackMatcher matcher) {
+        if (song.name == null || song.artists == null || song.artists.length == 0) {
+            return 0;
+        }
+
+        String[] artists = new String[song.artists.length];
+        for (int i = 0; i < artists.length; i++) {
+            artists[i] = song.artists[i].name;
+        }
+        return matcher.score(song.name, artists, song.duration);
+    }
+
+    private static JsonReader reader(byte[] json) {
+        return new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,49 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsCodec;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the binary lyrics format, compare with {@link LyricsReaderBenchmark}
+ *
+ * @author LabyStudio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LyricsCodecBenchmark {
+
+    @Param({"short", "long", "multi"})
+    public String file;
+
+    private Lyrics lyrics;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        this.lyrics = new LyricsReader(Corpus.readString(this.file + ".lrc")).readLyrics();
+        this.encoded = LyricsCodec.encode(this.lyrics);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return LyricsCodec.encode(this.lyrics);
+    }
+
+    @Benchmark
+    public Lyrics decode() throws IOException {
+        return LyricsCodec.decode(this.encoded);
+    }
+}
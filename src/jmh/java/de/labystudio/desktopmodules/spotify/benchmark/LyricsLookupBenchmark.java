@@ -0,0 +1,92 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.VoiceLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Voice line lookup of the lyrics module across song lengths
+ *
+ * @author LabyStudio
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LyricsLookupBenchmark {
+
+    /**
+     * Time between two ticks of the module
+     */
+    private static final long TICK = 16;
+
+    @Param({"50", "500", "5000"})
+    public int lines;
+
+    private Lyrics lyrics;
+    private Lyrics.Cursor cursor;
+    private final int[] window = new int[3];
+
+    private long[] randomOffsets;
+    private int randomIndex;
+
+    private long length;
+    private long position;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        long[] offsets = new long[this.lines];
+        String[] contents = new String[this.lines];
+        long offset = 0;
+        for (int i = 0; i < this.lines; i++) {
+            offset += 1500 + random.nextInt(3000);
+            offsets[i] = offset;
+            contents[i] = "Voice line " + (i % 40);
+        }
+
+        this.lyrics = new Lyrics(offsets, contents);
+        this.cursor = this.lyrics.cursor();
+        this.length = offset + 1000;
+
+        this.randomOffsets = new long[1024];
+        for (int i = 0; i < this.randomOffsets.length; i++) {
+            this.randomOffsets[i] = (long) (random.nextDouble() * this.length);
+        }
+    }
+
+    @Benchmark
+    public VoiceLine getVoiceLineAtRandom() {
+        long offset = this.randomOffsets[this.randomIndex++ & 1023];
+        return this.lyrics.getVoiceLineAt(offset, -2);
+    }
+
+    @Benchmark
+    public int[] cursorPlayback() {
+        // Play the song from the start again after the end
+        this.position += TICK;
+        if (this.position > this.length) {
+            this.position = 0;
+        }
+
+        this.cursor.fill(this.position, -2, this.window);
+        return this.window;
+    }
+
+    @Benchmark
+    public int[] cursorSeek() {
+        long offset = this.randomOffsets[this.randomIndex++ & 1023];
+        this.cursor.fill(offset, -2, this.window);
+        return this.window;
+    }
+}
@@ -0,0 +1,52 @@
+package de.labystudio.desktopmodules.spotify.benchmark;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of LRC files from a string and from a response stream
+ *
+ * @author LabyStudio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LyricsReaderBenchmark {
+
+    /**
+     * short: 45 lines, long: 320 lines with CRLF, multi: repeated chorus with multiple timestamps per line
+     */
+    @Param({"short", "long", "multi"})
+    public String file;
+
+    private String text;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        this.bytes = Corpus.read(this.file + ".lrc");
+        this.text = Corpus.readString(this.file + ".lrc");
+    }
+
+    @Benchmark
+    public Lyrics readString() {
+        return new LyricsReader(this.text).readLyrics();
+    }
+
+    @Benchmark
+    public Lyrics readStream() {
+        return new LyricsReader(new ByteArrayInputStream(this.bytes)).readLyrics();
+    }
+}
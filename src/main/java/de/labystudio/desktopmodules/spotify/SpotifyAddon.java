@@ -1,12 +1,19 @@
 package de.labystudio.desktopmodules.spotify;
 
 import de.labystudio.desktopmodules.core.addon.Addon;
+import de.labystudio.desktopmodules.spotify.api.cover.CoverDiskCache;
+import de.labystudio.desktopmodules.spotify.api.lyrics.LyricsProvider;
+import de.labystudio.desktopmodules.spotify.api.playback.PlaybackClock;
 import de.labystudio.desktopmodules.spotify.modules.LyricsModule;
 import de.labystudio.desktopmodules.spotify.modules.SpotifyModule;
 import de.labystudio.spotifyapi.SpotifyAPI;
 import de.labystudio.spotifyapi.SpotifyAPIFactory;
 import de.labystudio.spotifyapi.SpotifyListenerAdapter;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Spotify addon
  *
@@ -14,13 +21,33 @@ import de.labystudio.spotifyapi.SpotifyListenerAdapter;
  */
 public class SpotifyAddon extends Addon {
 
+    /**
+     * Directory for all persistent caches of this addon
+     */
+    public static final File CACHE_DIRECTORY = new File(
+            System.getenv("APPDATA") == null ? System.getProperty("user.home") : System.getenv("APPDATA"),
+            "DesktopModules/cache/spotify"
+    );
+
     private SpotifyAPI spotifyAPI;
+    private LyricsProvider lyricsProvider;
+    private PlaybackClock playbackClock;
+    private CoverDiskCache coverDiskCache;
+
+    /**
+     * Loads and downloads the covers one after another
+     */
+    private ExecutorService coverExecutor;
+
     private String lastError = null;
     private boolean initialized = false;
 
     @Override
     public void onInitialize() throws Exception {
+        this.lyricsProvider = createLyricsProvider();
+        this.createCoverLoader();
         this.spotifyAPI = SpotifyAPIFactory.create();
+        this.playbackClock = new PlaybackClock(this.spotifyAPI);
         this.spotifyAPI.registerListener(new SpotifyListenerAdapter() {
             @Override
             public void onConnect() {
@@ -48,18 +75,69 @@ public class SpotifyAddon extends Addon {
         // Don't initialize api before modules are registered
         if (this.initialized) {
             this.spotifyAPI.initializeAsync();
+
+            // The previous provider was shut down on disable
+            if (this.lyricsProvider.isShutdown()) {
+                this.lyricsProvider = createLyricsProvider();
+            }
+            if (this.coverExecutor.isShutdown()) {
+                this.createCoverLoader();
+            }
         }
     }
 
     @Override
     public void onDisable() {
         this.spotifyAPI.stop();
+
+        // Cancel all lyrics lookups and close the cache
+        if (this.lyricsProvider != null) {
+            this.lyricsProvider.shutdown();
+        }
+
+        // Stop loading covers and write the cover index
+        if (this.coverExecutor != null) {
+            this.coverExecutor.shutdownNow();
+            this.coverDiskCache.close();
+        }
+    }
+
+    private LyricsProvider createLyricsProvider() {
+        return new LyricsProvider(new File(CACHE_DIRECTORY, "lyrics"));
+    }
+
+    private void createCoverLoader() {
+        this.coverDiskCache = new CoverDiskCache(new File(CACHE_DIRECTORY, "covers"));
+        this.coverExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Spotify Cover Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Read the cover index before the first cover is requested
+        this.coverExecutor.execute(this.coverDiskCache::load);
     }
 
     public SpotifyAPI getSpotifyAPI() {
         return this.spotifyAPI;
     }
 
+    public PlaybackClock getPlaybackClock() {
+        return this.playbackClock;
+    }
+
+    public LyricsProvider getLyricsProvider() {
+        return this.lyricsProvider;
+    }
+
+    public CoverDiskCache getCoverDiskCache() {
+        return this.coverDiskCache;
+    }
+
+    public ExecutorService getCoverExecutor() {
+        return this.coverExecutor;
+    }
+
     public String getLastError() {
         return this.lastError;
     }
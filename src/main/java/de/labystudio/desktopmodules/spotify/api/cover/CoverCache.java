@@ -0,0 +1,114 @@
+package de.labystudio.desktopmodules.spotify.api.cover;
+
+import de.labystudio.desktopmodules.spotify.render.Images;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of the most recently used track covers.
+ * The covers are stored pre-scaled to the size they are drawn at, so drawing them is a plain copy.
+ *
+ * @author LabyStudio
+ */
+public class CoverCache {
+
+    /**
+     * Default maximum amount of cached covers
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private final Map<String, BufferedImage> covers;
+
+    /**
+     * Create a cache with the given bound
+     *
+     * @param maxEntries Maximum amount of cached covers
+     */
+    public CoverCache(int maxEntries) {
+        this.covers = new LinkedHashMap<String, BufferedImage>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Create a cache with the default bound
+     */
+    public CoverCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Create the cache key of the given track
+     *
+     * @param track The track to create the key for
+     * @return The id of the track or its name and artist if it has no id
+     */
+    public static String keyOf(Track track) {
+        return track.getId() == null ? track.getName() + ":" + track.getArtist() : track.getId();
+    }
+
+    /**
+     * Get the cached cover of the given track
+     *
+     * @param key  The key of the track
+     * @param size The size the cover is drawn at
+     * @return The cover or null if there is no cover with the given size
+     */
+    public synchronized BufferedImage get(String key, int size) {
+        BufferedImage cover = this.covers.get(key);
+        return cover == null || cover.getWidth() != size ? null : cover;
+    }
+
+    /**
+     * Store the cover of a track
+     *
+     * @param key   The key of the track
+     * @param cover The pre-scaled cover
+     */
+    public synchronized void put(String key, BufferedImage cover) {
+        this.covers.put(key, cover);
+    }
+
+    /**
+     * Scale an image down to a square image that can be drawn without scaling.
+     * The image is halved in multiple steps to keep the quality of bilinear filtering.
+     *
+     * @param image The source image
+     * @param size  The width and height of the result
+     * @return A new image in the format of the screen
+     */
+    public static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        // Halve the image until it is close to the target size
+        while (width / 2 >= size && height / 2 >= size) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), width, height);
+        }
+
+        return draw(current, Images.createCompatibleImage(size, size), size, size);
+    }
+
+    private static BufferedImage draw(BufferedImage source, BufferedImage target, int width, int height) {
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,391 @@
+package de.labystudio.desktopmodules.spotify.api.cover;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache of downscaled track covers.
+ * <p>
+ * Every cover is stored as a PNG file named after the SHA-1 hash of its content, so tracks of the same
+ * album share a single file. The index maps the track keys to the files and keeps the least recently
+ * used order. Files that are no longer referenced by any track are deleted.
+ *
+ * @author LabyStudio
+ */
+public class CoverDiskCache {
+
+    /**
+     * Default maximum size in bytes of all cover files
+     */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final int INDEX_VERSION = 1;
+    private static final String INDEX_FILE = "covers.idx";
+    private static final String EXTENSION = ".png";
+
+    private final File directory;
+    private final File indexFile;
+    private final long maxSize;
+
+    /**
+     * Content hash of the cover of each track in least recently used order
+     */
+    private final LinkedHashMap<String, String> index = new LinkedHashMap<>(64, 0.75F, true);
+
+    /**
+     * Size and reference count of each cover file
+     */
+    private final Map<String, Blob> blobs = new HashMap<>();
+
+    /**
+     * Total size of all referenced cover files
+     */
+    private long size;
+
+    private boolean loaded;
+    private boolean closed;
+
+    /**
+     * The index was changed since it was written to the disk
+     */
+    private boolean dirty;
+
+    /**
+     * Create a cache in the given directory. The index is read by {@link #load()}.
+     *
+     * @param directory The directory to store the covers in
+     * @param maxSize   Maximum size in bytes of all cover files
+     */
+    public CoverDiskCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.indexFile = new File(directory, INDEX_FILE);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create a cache in the given directory with the default maximum size
+     *
+     * @param directory The directory to store the covers in
+     */
+    public CoverDiskCache(File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Read the index and delete cover files that are not referenced anymore.
+     * This should be called once on a background thread before the cache is used.
+     */
+    public synchronized void load() {
+        if (this.loaded || this.closed) {
+            return;
+        }
+        this.loaded = true;
+
+        if (!this.directory.exists() && !this.directory.mkdirs()) {
+            System.err.println("Could not create cover cache directory " + this.directory);
+            return;
+        }
+
+        if (this.indexFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.indexFile)))) {
+                if (in.readInt() == INDEX_VERSION) {
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        String key = in.readUTF();
+                        String hash = in.readUTF();
+
+                        // Skip entries of deleted files
+                        File file = this.fileOf(hash);
+                        if (file.exists()) {
+                            this.reference(key, hash, file.length());
+                        } else {
+                            this.dirty = true;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Start with an empty cache
+                e.printStackTrace();
+                this.index.clear();
+                this.blobs.clear();
+                this.size = 0;
+            }
+        }
+
+        // Delete cover files without a track
+        File[] files = this.directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                String hash = file.getName().substring(0, file.getName().length() - EXTENSION.length());
+                if (!this.blobs.containsKey(hash)) {
+                    file.delete();
+                }
+            }
+        }
+
+        this.evict();
+        this.flush();
+    }
+
+    /**
+     * Read the cached cover of a track
+     *
+     * @param key  The key of the track
+     * @param size The size the cover is drawn at
+     * @return The scaled cover or null if there is no cover that is large enough
+     */
+    public synchronized BufferedImage get(String key, int size) {
+        if (this.closed) {
+            return null;
+        }
+
+        // Marks the cover as recently used
+        String hash = this.index.get(key);
+        if (hash == null) {
+            return null;
+        }
+        this.dirty = true;
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(this.fileOf(hash))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unreadable cover file " + hash);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+
+                // Download the cover again if the module got larger
+                int width = reader.getWidth(0);
+                if (width < size) {
+                    return null;
+                }
+
+                // Skip the pixels that would be scaled away anyway
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = width / size;
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+
+                return CoverCache.scale(reader.read(0, param), size);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            // Drop the broken cover
+            this.release(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store the cover of a track
+     *
+     * @param key   The key of the track
+     * @param cover The scaled cover
+     */
+    public synchronized void put(String key, BufferedImage cover) {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            byte[] data = encode(cover);
+            String hash = hash(data);
+
+            // Covers of the same album are only written once
+            File file = this.fileOf(hash);
+            if (!this.blobs.containsKey(hash) || !file.exists()) {
+                File temporary = new File(this.directory, hash + ".tmp");
+                Files.write(temporary.toPath(), data);
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // Replace the previous cover of this track
+            String previous = this.index.get(key);
+            this.reference(key, hash, data.length);
+            if (previous != null) {
+                this.releaseBlob(previous);
+            }
+
+            this.evict();
+            this.dirty = true;
+            this.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the index and stop using the cache
+     */
+    public synchronized void close() {
+        this.flush();
+        this.closed = true;
+    }
+
+    /**
+     * Amount of tracks with a cached cover
+     *
+     * @return Amount of entries in the index
+     */
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Amount of distinct cover files
+     *
+     * @return Amount of files
+     */
+    public synchronized int getFileCount() {
+        return this.blobs.size();
+    }
+
+    /**
+     * Total size of all cover files
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    private void reference(String key, String hash, long length) {
+        this.index.put(key, hash);
+
+        Blob blob = this.blobs.get(hash);
+        if (blob == null) {
+            this.blobs.put(hash, new Blob(length));
+            this.size += length;
+        } else {
+            blob.references++;
+        }
+    }
+
+    private void release(String key) {
+        String hash = this.index.remove(key);
+        if (hash != null) {
+            this.releaseBlob(hash);
+            this.dirty = true;
+        }
+    }
+
+    private void releaseBlob(String hash) {
+        Blob blob = this.blobs.get(hash);
+        if (blob != null && --blob.references == 0) {
+            this.blobs.remove(hash);
+            this.size -= blob.length;
+            this.fileOf(hash).delete();
+        }
+    }
+
+    /**
+     * Remove the least recently used covers until the cache fits into the maximum size
+     */
+    private void evict() {
+        Iterator<String> iterator = this.index.values().iterator();
+        while (this.size > this.maxSize && iterator.hasNext()) {
+            String hash = iterator.next();
+            iterator.remove();
+            this.releaseBlob(hash);
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Write the index to the disk if it was changed
+     */
+    public synchronized void flush() {
+        if (!this.dirty || this.closed || !this.loaded) {
+            return;
+        }
+
+        try {
+            File temporary = new File(this.directory, INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(this.index.size());
+
+                // Entries are written from least to most recently used
+                for (Map.Entry<String, String> entry : this.index.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+
+            Files.move(temporary.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            this.dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private File fileOf(String hash) {
+        return new File(this.directory, hash + EXTENSION);
+    }
+
+    private static byte[] encode(BufferedImage cover) throws IOException {
+        // Premultiplied and screen specific images can't be written directly
+        BufferedImage image = cover;
+        if (cover.getType() != BufferedImage.TYPE_INT_ARGB && cover.getType() != BufferedImage.TYPE_INT_RGB) {
+            image = new BufferedImage(cover.getWidth(), cover.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            image.getGraphics().drawImage(cover, 0, 0, null);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("No PNG encoder available");
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] data) throws IOException {
+        try {
+            StringBuilder builder = new StringBuilder(40);
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+                builder.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Size and reference count of a cover file
+     */
+    private static class Blob {
+
+        private final long length;
+        private int references = 1;
+
+        private Blob(long length) {
+            this.length = length;
+        }
+    }
+}
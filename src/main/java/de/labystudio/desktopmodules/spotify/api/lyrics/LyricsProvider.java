@@ -1,16 +1,40 @@
 package de.labystudio.desktopmodules.spotify.api.lyrics;
 
+import de.labystudio.desktopmodules.spotify.api.lyrics.cache.LyricsDiskCache;
+import de.labystudio.desktopmodules.spotify.api.lyrics.cache.LyricsMemoryCache;
+import de.labystudio.desktopmodules.spotify.api.lyrics.metrics.LyricsMetrics;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.Deadline;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.SourceHealth;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.http.HttpTransport;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft.CrintSoftSource;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.local.LocalLibrarySource;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.Music163Source;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.LrcLib;
 import de.labystudio.spotifyapi.model.Track;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -20,58 +44,323 @@ import java.util.function.Consumer;
  */
 public class LyricsProvider {
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Default delay in milliseconds before the fallback sources are queried in concurrent mode
+     */
+    public static final long DEFAULT_HEDGE_DELAY = 400;
+
+    /**
+     * Default delay in milliseconds before a lookup starts, to coalesce rapid track changes
+     */
+    public static final long DEFAULT_DEBOUNCE_DELAY = 150;
+
+    /**
+     * Default time budget in milliseconds of a lookup in all sources
+     */
+    public static final long DEFAULT_TIMEOUT = 8000;
+
+    /**
+     * Executor that runs the debounced lookups
+     */
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Executor that runs the source requests of a concurrent lookup.
+     * It grows on demand, so requests that are still being aborted don't delay the next lookup.
+     */
+    private final ExecutorService sourceExecutor;
 
     /**
-     * A list of all lyrics databases
+     * A list of all lyrics databases in order of their initial priority
      */
     private final List<LyricsSource> sources = new ArrayList<>();
 
     /**
-     * Adds all sources
+     * Cache of the most recently used lyrics
+     */
+    private final LyricsMemoryCache memoryCache = new LyricsMemoryCache();
+
+    /**
+     * Persistent cache of all previously found lyrics (Can be null if the cache is not available)
+     */
+    private final LyricsDiskCache diskCache;
+
+    /**
+     * Local LRC files that are preferred over all caches and online sources
+     */
+    private volatile LocalLibrarySource localLibrary;
+
+    /**
+     * All lookups that are not completed yet by the key of their track
+     */
+    private final Map<String, Lookup> lookups = new ConcurrentHashMap<>();
+
+    /**
+     * The key of the most recently requested track, callbacks of other tracks are dropped
+     */
+    private volatile String latestKey;
+
+    /**
+     * Time in milliseconds to wait before a lookup starts
+     */
+    private long debounceDelay = DEFAULT_DEBOUNCE_DELAY;
+
+    /**
+     * Time budget in milliseconds of a lookup in all sources
+     */
+    private long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * Query all sources at the same time instead of one after another
+     */
+    private boolean concurrent = true;
+
+    /**
+     * Time in milliseconds to wait for the preferred source before the fallback sources are queried as well
+     */
+    private long hedgeDelay = DEFAULT_HEDGE_DELAY;
+
+    /**
+     * Adds all sources without a persistent cache
      */
     public LyricsProvider() {
-        this.sources.add(new LrcLib());
-        this.sources.add(new Music163Source());
-        this.sources.add(new CrintSoftSource());
+        this(null);
+    }
+
+    /**
+     * Adds all sources and opens the persistent cache in the given directory
+     *
+     * @param cacheDirectory Directory of the persistent lyrics cache (Can be null to disable the cache)
+     */
+    public LyricsProvider(File cacheDirectory) {
+        this(defaultSources(), cacheDirectory);
     }
 
     /**
-     * Search in all databases for the lyrics of the given track asynchronously
+     * Use the given sources and open the persistent cache in the given directory
+     *
+     * @param sources        The lyrics sources in order of their initial priority
+     * @param cacheDirectory Directory of the persistent lyrics cache (Can be null to disable the cache)
+     */
+    public LyricsProvider(List<LyricsSource> sources, File cacheDirectory) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one lyrics source is required");
+        }
+
+        this.diskCache = cacheDirectory == null ? null : openDiskCache(cacheDirectory);
+        this.sources.addAll(sources);
+
+        this.sourceExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Lyrics Source");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executor = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "Lyrics Lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+
+        // Publish the lookup metrics over JMX
+        LyricsMetrics.get().register(this.sources, this.memoryCache);
+    }
+
+    /**
+     * Search in all databases for the lyrics of the given track asynchronously.
+     * <p>
+     * Each request supersedes the requests of all previous tracks: Their lookups are cancelled and their
+     * callbacks are dropped. The lookup starts after the debounce delay, so skipping through several
+     * tracks quickly only searches the lyrics of the last one. A file of the local library is read right away,
+     * but never on the calling thread. Requests for a track that is already
+     * being looked up share the result of the running lookup.
      *
      * @param track    The track to find the lyrics to
-     * @param callback Callback for the lyrics if available (Lyrics can be null)
+     * @param callback Callback for the lyrics if available (Lyrics can be null if there is no result or the lookup failed)
      */
     public void requestAsync(Track track, Consumer<Lyrics> callback) {
-        // Execute in thread
-        this.executor.execute(() -> {
-            // Request lyrics of track
-            Lyrics lyric = request(track);
+        this.requestAsync(track, (lyrics, throwable) -> {
+            if (throwable != null && !(throwable instanceof LyricsTimeoutException)) {
+                throwable.printStackTrace();
+            }
+            callback.accept(lyrics);
+        });
+    }
 
-            // Call the lyrics callback
-            callback.accept(lyric);
+    /**
+     * Search in all databases for the lyrics of the given track asynchronously.
+     * See {@link #requestAsync(Track, Consumer)} for the handling of track changes.
+     *
+     * @param track    The track to find the lyrics to
+     * @param callback Callback for the lyrics (Can be null) or the failure of the lookup,
+     *                 a {@link LyricsTimeoutException} if the time budget ran out
+     */
+    public void requestAsync(Track track, BiConsumer<Lyrics, Throwable> callback) {
+        String key = keyOf(track);
+        this.latestKey = key;
+
+        // Cancel the lookups of the outdated tracks
+        this.lookups.forEach((lookupKey, lookup) -> {
+            if (!lookupKey.equals(key)) {
+                lookup.cancel();
+            }
+        });
+
+        // Lyrics of the local library are preferred, only its index is searched on this thread
+        boolean local = this.hasLocal(track);
+
+        // Lyrics of a recently played track are available right away
+        Lyrics cached = local ? null : this.memoryCache.get(track);
+        if (cached != null) {
+            callback.accept(cached, null);
+            return;
+        }
+
+        // Join the running lookup of this track or start a new one, a local file is read without debouncing
+        Lookup lookup = this.lookups.computeIfAbsent(key, k -> new Lookup(k, track));
+        lookup.start(local ? 0 : this.debounceDelay);
+        lookup.result.whenComplete((lyrics, throwable) -> {
+            // Drop the result if the track changed in the meantime
+            if (!key.equals(this.latestKey)) {
+                return;
+            }
+
+            // The callback also runs for a failed lookup, so the track change is always completed
+            callback.accept(lyrics, throwable instanceof CompletionException ? throwable.getCause() : throwable);
         });
     }
 
     /**
-     * Search in all databases for the lyrics of the given track
+     * Get the lyrics of the given track from the caches or search in all databases for it.
+     * Depending on the lookup mode the sources are either raced against each other or queried one by one.
      *
      * @param track The track to find the lyrics to
      * @return The lyrics (Can be null if there is no result)
+     * @throws LyricsTimeoutException If the time budget ran out before any source delivered lyrics
      */
-    public Lyrics request(Track track) {
-        // Search in all databases
-        for (LyricsSource lyricSource : this.sources) {
-            try {
-                // Find lyrics for this database
-                Lyrics lyric = lyricSource.get(track);
+    public Lyrics request(Track track) throws LyricsTimeoutException {
+        // Lyrics of a recently played track, unless the local library has a file of the track
+        if (!this.hasLocal(track)) {
+            Lyrics lyrics = this.memoryCache.get(track);
+            if (lyrics != null) {
+                return lyrics;
+            }
+        }
 
-                // Return if available
-                if (lyric != null) {
-                    return lyric;
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+        return load(track, Deadline.after(this.timeout));
+    }
+
+    /**
+     * Get the lyrics of the given track from the local library, the persistent cache or search in all databases for it
+     *
+     * @param track    The track to find the lyrics to
+     * @param deadline The time budget of the lookup, cancelling it aborts all running requests
+     * @return The lyrics (Can be null if there is no result or the lookup was interrupted)
+     * @throws LyricsTimeoutException If the time budget ran out before any source delivered lyrics
+     */
+    private Lyrics load(Track track, Deadline deadline) throws LyricsTimeoutException {
+        // Lyrics of the local library are preferred
+        Lyrics lyrics = this.findLocal(track);
+        if (lyrics != null) {
+            return lyrics;
+        }
+
+        LyricsMetrics metrics = LyricsMetrics.get();
+        long start = System.nanoTime();
+
+        // Lyrics of a previously played track
+        if (this.diskCache != null) {
+            lyrics = this.diskCache.get(track);
+            metrics.recordDiskCache(lyrics != null);
+
+            if (lyrics != null) {
+                this.memoryCache.put(track, lyrics);
+                metrics.recordLookup(System.nanoTime() - start);
+                return lyrics;
+            }
+        }
+
+        lyrics = this.concurrent ? requestConcurrent(track, deadline) : requestSequential(track, deadline);
+
+        metrics.recordLookup(System.nanoTime() - start);
+
+        // The sources didn't answer in time
+        if (lyrics == null && deadline.isExpired() && !deadline.isCancelled()) {
+            metrics.recordTimeout();
+            throw new LyricsTimeoutException(track, deadline.getBudget());
+        }
+
+        // Store the lyrics for the next time
+        if (lyrics != null) {
+            this.memoryCache.put(track, lyrics);
+
+            if (this.diskCache != null) {
+                this.diskCache.put(track, lyrics);
+            }
+        }
+
+        return lyrics;
+    }
+
+    /**
+     * Check if the index of the local library has a file of the given track without reading it
+     *
+     * @param track The track to find the lyrics file of
+     * @return The local library has a matching file
+     */
+    private boolean hasLocal(Track track) {
+        LocalLibrarySource library = this.localLibrary;
+        return library != null && library.find(track) != null;
+    }
+
+    /**
+     * Read the lyrics of the given track from the local library
+     *
+     * @param track The track to find the lyrics to
+     * @return The lyrics (Can be null if there is no library or no matching file)
+     */
+    private Lyrics findLocal(Track track) {
+        LocalLibrarySource library = this.localLibrary;
+        if (library == null) {
+            return null;
+        }
+
+        SourceHealth health = library.getHealth();
+        long start = System.nanoTime();
+
+        try {
+            Lyrics lyrics = library.get(track, null);
+            health.recordSuccess(System.nanoTime() - start, lyrics != null);
+            return lyrics;
+        } catch (Exception e) {
+            health.recordFailure(System.nanoTime() - start);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Search in all databases one after another for the lyrics of the given track
+     *
+     * @param track    The track to find the lyrics to
+     * @param deadline The time budget that is shared by all sources
+     * @return The lyrics (Can be null if there is no result or the deadline expired)
+     */
+    public Lyrics requestSequential(Track track, Deadline deadline) {
+        // Search in all available databases
+        for (LyricsSource lyricSource : rankSources()) {
+            // The lookup was cancelled or ran out of time
+            if (Thread.currentThread().isInterrupted() || deadline.isExpired()) {
+                return null;
+            }
+
+            // Find lyrics for this database
+            Lyrics lyric = query(lyricSource, track, deadline);
+
+            // Return if available
+            if (lyric != null) {
+                return lyric;
             }
         }
 
@@ -79,5 +368,424 @@ public class LyricsProvider {
         return null;
     }
 
+    /**
+     * Search in all databases at the same time for the lyrics of the given track.
+     * The preferred source is queried first, the other sources follow after the hedge delay
+     * or as soon as a source with a higher priority failed.
+     * The result of the source with the highest priority always wins,
+     * remaining requests are cancelled as soon as the winner is known.
+     *
+     * @param track    The track to find the lyrics to
+     * @param deadline The time budget that is shared by all sources
+     * @return The lyrics (Can be null if there is no result or the deadline expired)
+     */
+    public Lyrics requestConcurrent(Track track, Deadline deadline) {
+        List<LyricsSource> sources = rankSources();
+        int amount = sources.size();
+
+        // All sources are unavailable
+        if (amount == 0) {
+            return null;
+        }
+
+        // Cancelled as soon as the race is decided
+        Deadline race = deadline.fork();
+
+        Lyrics[] results = new Lyrics[amount];
+        boolean[] completed = new boolean[amount];
+        Future<?>[] futures = new Future[amount];
+
+        // Indices of the sources that are done, in order of completion
+        BlockingQueue<Integer> completions = new LinkedBlockingQueue<>();
+
+        // Released as soon as a source didn't find anything
+        CountDownLatch hedge = new CountDownLatch(1);
+        long hedgeDelay = this.hedgeDelay;
+
+        // Start the preferred source immediately and the fallback sources after the hedge delay
+        for (int i = 0; i < amount; i++) {
+            LyricsSource source = sources.get(i);
+            int index = i;
+
+            futures[i] = this.sourceExecutor.submit(() -> {
+                try {
+                    if (index > 0) {
+                        hedge.await(hedgeDelay, TimeUnit.MILLISECONDS);
+                    }
+                    results[index] = query(source, track, race);
+                } catch (InterruptedException e) {
+                    // The race was decided during the hedge delay
+                } finally {
+                    completions.add(index);
+                }
+            });
+        }
+
+        try {
+            while (true) {
+                // Find the highest priority result that can already be decided
+                for (int i = 0; i < amount; i++) {
+                    if (!completed[i]) {
+                        break;
+                    }
+                    if (results[i] != null) {
+                        return results[i];
+                    }
+                }
+
+                // All sources answered without a result
+                if (allCompleted(completed)) {
+                    return null;
+                }
+
+                // Wait for the next source to finish
+                Integer index = completions.poll(deadline.remaining(), TimeUnit.MILLISECONDS);
+                if (index == null) {
+                    // Out of time, don't wait for the remaining sources
+                    return null;
+                }
+                completed[index] = true;
+
+                // Don't wait for the hedge delay if a source didn't find anything
+                if (results[index] == null) {
+                    hedge.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            // Cancel the lookups that lost the race and close their connections
+            race.cancel();
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Request the lyrics from the given source and record the outcome in the health of the source
+     *
+     * @param source   The source to request
+     * @param track    The track to find the lyrics to
+     * @param deadline The remaining time budget of the lookup
+     * @return The lyrics (Can be null if there is no result or the request failed)
+     */
+    private Lyrics query(LyricsSource source, Track track, Deadline deadline) {
+        // A hedged request that starts after the deadline doesn't have to be sent at all
+        if (deadline.isExpired()) {
+            return null;
+        }
+
+        // Claim the request right before it is sent, a recovering source only allows a single probe
+        SourceHealth health = source.getHealth();
+        if (!health.allowRequest()) {
+            return null;
+        }
+        long start = System.nanoTime();
+
+        try {
+            Lyrics lyrics = source.get(track, deadline);
+            health.recordSuccess(System.nanoTime() - start, lyrics != null);
+            return lyrics;
+        } catch (Exception e) {
+            // The budget of the whole lookup ran out, the source might just have been requested late
+            if (deadline.isExpired()) {
+                health.recordDeadlineExceeded(System.nanoTime() - start);
+                return null;
+            }
+
+            // A cancelled request is not the fault of the source
+            boolean cancelled = e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
+            if (cancelled || deadline.isCancelled() || Thread.currentThread().isInterrupted()) {
+                health.releaseProbe();
+                return null;
+            }
+
+            if (health.recordFailure(System.nanoTime() - start)) {
+                System.err.println("Lyrics source " + source.getName() + " is unavailable, skipping it for "
+                        + health.getCooldown() / 1000 + " seconds");
+                e.printStackTrace();
+            } else {
+                System.err.println("Lyrics source " + source.getName() + " failed: " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get all sources that are currently available, ordered by their expected time to deliver lyrics.
+     * Sources with an open circuit breaker are skipped. The ranking doesn't claim the probe of a recovering
+     * source, because it might never be queried if another source answers first.
+     *
+     * @return The ranked sources
+     */
+    private List<LyricsSource> rankSources() {
+        List<LyricsSource> ranked = new ArrayList<>(this.sources.size());
+        Map<LyricsSource, Double> scores = new IdentityHashMap<>();
+
+        for (LyricsSource source : this.sources) {
+            SourceHealth health = source.getHealth();
+            if (health.isAvailable()) {
+                ranked.add(source);
+
+                // Snapshot the score, it can change while sorting
+                scores.put(source, health.getScore());
+            }
+        }
+
+        // Stable sort, sources with the same score keep their initial priority
+        ranked.sort(Comparator.comparingDouble(scores::get));
+        return ranked;
+    }
+
+    /**
+     * Open the connections to all sources in the background,
+     * so the first lookup doesn't have to wait for the DNS lookups and handshakes
+     */
+    public void warmUp() {
+        List<String> urls = new ArrayList<>();
+        for (LyricsSource source : this.sources) {
+            if (source.getWarmUpUrl() != null) {
+                urls.add(source.getWarmUpUrl());
+            }
+        }
+        HttpTransport.get().warmUp(urls);
+    }
+
+    /**
+     * Use the LRC files of the given directory before any other source.
+     * The directory is indexed in the background and watched for changes.
+     *
+     * @param directory The directory of the library (Can be null to disable the local library)
+     */
+    public synchronized void setLocalLibrary(File directory) {
+        LocalLibrarySource previous = this.localLibrary;
+        if (previous != null && previous.getDirectory().equals(directory)) {
+            return;
+        }
+
+        // Stop watching the previous library
+        if (previous != null) {
+            previous.close();
+            LyricsMetrics.get().unregister(previous);
+        }
+        this.localLibrary = null;
+
+        if (directory == null || !directory.isDirectory() || this.isShutdown()) {
+            return;
+        }
+
+        LocalLibrarySource library = new LocalLibrarySource(directory);
+        this.localLibrary = library;
+        LyricsMetrics.get().register(library);
+
+        Thread thread = new Thread(library::load, "Lyrics Library Indexer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Cancel all lookups, stop the executors and close the persistent cache
+     */
+    public void shutdown() {
+        this.latestKey = null;
+        this.lookups.values().forEach(Lookup::cancel);
+
+        this.executor.shutdownNow();
+        this.sourceExecutor.shutdownNow();
+
+        if (this.localLibrary != null) {
+            this.localLibrary.close();
+        }
+
+        LyricsMetrics.get().unregister();
+
+        if (this.diskCache != null) {
+            this.diskCache.close();
+        }
+    }
+
+    /**
+     * Check if the provider was shut down
+     *
+     * @return The provider can't be used anymore
+     */
+    public boolean isShutdown() {
+        return this.executor.isShutdown();
+    }
 
+    private String keyOf(Track track) {
+        String key = LyricsDiskCache.keyOf(track);
+        return key == null ? track.getName() + ":" + track.getArtist() + ":" + track.getLength() : key;
+    }
+
+    /**
+     * Create all online lyrics databases in order of their initial priority
+     *
+     * @return A new list of the default sources
+     */
+    public static List<LyricsSource> defaultSources() {
+        List<LyricsSource> sources = new ArrayList<>();
+        sources.add(new LrcLib());
+        sources.add(new Music163Source());
+        sources.add(new CrintSoftSource());
+        return sources;
+    }
+
+    private LyricsDiskCache openDiskCache(File directory) {
+        try {
+            return new LyricsDiskCache(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private boolean allCompleted(boolean[] completed) {
+        for (boolean done : completed) {
+            if (!done) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Enable or disable the concurrent lookup mode
+     *
+     * @param concurrent Query all sources at the same time instead of one after another
+     */
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * Set the time to wait for the preferred source before the fallback sources are queried as well
+     *
+     * @param hedgeDelay Delay in milliseconds (0 to query all sources right away)
+     */
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = Math.max(0, hedgeDelay);
+    }
+
+    /**
+     * Set the time to wait before a lookup starts
+     *
+     * @param debounceDelay Delay in milliseconds (0 to start lookups right away)
+     */
+    public void setDebounceDelay(long debounceDelay) {
+        this.debounceDelay = Math.max(0, debounceDelay);
+    }
+
+    /**
+     * Set the time budget of a lookup in all sources
+     *
+     * @param timeout Budget in milliseconds
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = Math.max(1, timeout);
+    }
+
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    public long getDebounceDelay() {
+        return this.debounceDelay;
+    }
+
+    public List<LyricsSource> getSources() {
+        return this.sources;
+    }
+
+    public LocalLibrarySource getLocalLibrary() {
+        return this.localLibrary;
+    }
+
+    public LyricsMemoryCache getMemoryCache() {
+        return this.memoryCache;
+    }
+
+    public boolean isConcurrent() {
+        return this.concurrent;
+    }
+
+    public long getHedgeDelay() {
+        return this.hedgeDelay;
+    }
+
+    /**
+     * A debounced lookup of a single track that can be shared and cancelled
+     */
+    private class Lookup {
+
+        private final String key;
+        private final Track track;
+        private final CompletableFuture<Lyrics> result = new CompletableFuture<>();
+        private Future<?> future;
+        private Deadline deadline;
+
+        private Lookup(String key, Track track) {
+            this.key = key;
+            this.track = track;
+        }
+
+        /**
+         * Schedule the lookup if it is not scheduled yet
+         *
+         * @param delay Delay in milliseconds before the lookup starts
+         */
+        private synchronized void start(long delay) {
+            if (this.future != null) {
+                return;
+            }
+
+            this.future = executor.schedule(() -> {
+                try {
+                    Lyrics lyrics = load(this.track, this.createDeadline());
+
+                    // Don't publish the result of a superseded lookup
+                    if (!Thread.currentThread().isInterrupted()) {
+                        this.result.complete(lyrics);
+                    }
+                } catch (Throwable throwable) {
+                    this.result.completeExceptionally(throwable);
+                } finally {
+                    lookups.remove(this.key, this);
+                    this.result.cancel(false);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Start the time budget of the running lookup
+         *
+         * @return The deadline of the lookup (Already cancelled if the lookup was cancelled in the meantime)
+         */
+        private synchronized Deadline createDeadline() {
+            this.deadline = Deadline.after(timeout);
+            if (this.result.isCancelled()) {
+                this.deadline.cancel();
+            }
+            return this.deadline;
+        }
+
+        /**
+         * Cancel the lookup, interrupt it if it is already running and close its connections
+         */
+        private synchronized void cancel() {
+            lookups.remove(this.key, this);
+            this.result.cancel(false);
+
+            if (this.future != null) {
+                this.future.cancel(true);
+            }
+
+            // Interrupting the thread doesn't abort blocking I/O
+            if (this.deadline != null) {
+                this.deadline.cancel();
+            }
+        }
+    }
 }
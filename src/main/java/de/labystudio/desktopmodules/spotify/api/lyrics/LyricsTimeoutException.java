@@ -0,0 +1,34 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics;
+
+import de.labystudio.spotifyapi.model.Track;
+
+/**
+ * The time budget of a lyrics lookup ran out before any source delivered lyrics.
+ * Unlike a lookup without a result, the lyrics of the track might still exist.
+ *
+ * @author LabyStudio
+ */
+public class LyricsTimeoutException extends Exception {
+
+    private final Track track;
+    private final long budget;
+
+    public LyricsTimeoutException(Track track, long budget) {
+        super("Lyrics lookup of " + track.getName() + " timed out after " + budget + "ms");
+        this.track = track;
+        this.budget = budget;
+    }
+
+    public Track getTrack() {
+        return this.track;
+    }
+
+    /**
+     * The time budget of the lookup
+     *
+     * @return Budget in milliseconds
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+}
@@ -0,0 +1,416 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.cache;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsCodec;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent lyrics cache that survives restarts of the addon.
+ * <p>
+ * All lyrics are appended to a single data file, the index file maps the track keys to the records
+ * in the data file and keeps the least recently used order. Records that are evicted or replaced
+ * stay in the data file as garbage until the file gets compacted.
+ *
+ * @author LabyStudio
+ */
+public class LyricsDiskCache {
+
+    /**
+     * Default maximum size in bytes of all cached lyrics
+     */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    private static final int INDEX_VERSION = 2;
+    private static final String DATA_FILE = "lyrics.dat";
+    private static final String INDEX_FILE = "lyrics.idx";
+
+    private final File directory;
+    private final File dataFile;
+    private final File indexFile;
+    private final long maxSize;
+
+    /**
+     * All records in the data file in least recently used order
+     */
+    private final LinkedHashMap<String, Record> index = new LinkedHashMap<>(64, 0.75F, true);
+
+    private RandomAccessFile data;
+
+    /**
+     * Total size of all records that are still referenced by the index
+     */
+    private long liveSize;
+
+    /**
+     * The index was changed since it was written the last time
+     */
+    private boolean dirty;
+
+    /**
+     * Open the cache in the given directory and load the index
+     *
+     * @param directory The directory to store the cache files in
+     * @param maxSize   Maximum size in bytes of all cached lyrics
+     * @throws IOException If the cache files can't be opened
+     */
+    public LyricsDiskCache(File directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.dataFile = new File(directory, DATA_FILE);
+        this.indexFile = new File(directory, INDEX_FILE);
+        this.maxSize = maxSize;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory " + directory);
+        }
+
+        this.data = new RandomAccessFile(this.dataFile, "rw");
+        this.loadIndex();
+    }
+
+    /**
+     * Open the cache in the given directory with the default maximum size
+     *
+     * @param directory The directory to store the cache files in
+     * @throws IOException If the cache files can't be opened
+     */
+    public LyricsDiskCache(File directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create the cache key of the given track
+     *
+     * @param track The track to create the key for
+     * @return The key of the track or null if the track can't be cached
+     */
+    public static String keyOf(Track track) {
+        if (track == null || track.getId() == null) {
+            return null;
+        }
+        return track.getId() + ":" + track.getLength();
+    }
+
+    /**
+     * Get the cached lyrics of the given track
+     *
+     * @param track The track to get the lyrics of
+     * @return The cached lyrics or null if the track is not cached
+     */
+    public synchronized Lyrics get(Track track) {
+        String key = keyOf(track);
+        if (key == null || this.data == null) {
+            return null;
+        }
+
+        // Marks the record as recently used
+        Record record = this.index.get(key);
+        if (record == null) {
+            return null;
+        }
+        this.dirty = true;
+
+        try {
+            // Read the payload of the record
+            byte[] payload = new byte[record.length];
+            this.data.seek(record.position);
+            this.data.readFully(payload);
+
+            return LyricsCodec.decode(payload);
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            // Drop the broken record
+            this.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store the lyrics of the given track
+     *
+     * @param track  The track of the lyrics
+     * @param lyrics The lyrics to store
+     */
+    public synchronized void put(Track track, Lyrics lyrics) {
+        String key = keyOf(track);
+        if (key == null || lyrics == null || this.data == null) {
+            return;
+        }
+
+        try {
+            byte[] payload = LyricsCodec.encode(lyrics);
+
+            // Too large for the cache
+            if (payload.length > this.maxSize) {
+                return;
+            }
+
+            // Append the record to the end of the data file
+            long position = this.append(key, payload);
+
+            // Replace the previous record of this track
+            this.remove(key);
+            this.index.put(key, new Record(position, payload.length));
+            this.liveSize += payload.length;
+
+            this.evict();
+
+            // Rewrite the data file if most of it is garbage
+            long garbage = this.data.length() - this.liveSize;
+            if (garbage > this.liveSize && garbage > this.maxSize / 4) {
+                this.compact();
+            }
+
+            this.dirty = true;
+            this.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the index to the disk if it was changed
+     */
+    public synchronized void flush() {
+        if (!this.dirty || this.data == null) {
+            return;
+        }
+
+        try {
+            File temporary = new File(this.directory, INDEX_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeLong(this.data.length());
+                out.writeInt(this.index.size());
+
+                // Entries are written from least to most recently used
+                for (Map.Entry<String, Record> entry : this.index.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().position);
+                    out.writeInt(entry.getValue().length);
+                }
+            }
+
+            Files.move(temporary.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            this.dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the index and close the data file
+     */
+    public synchronized void close() {
+        this.flush();
+
+        try {
+            if (this.data != null) {
+                this.data.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        this.data = null;
+    }
+
+    /**
+     * Amount of cached lyrics
+     *
+     * @return Amount of entries in the index
+     */
+    public synchronized int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Total size of all cached lyrics
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getLiveSize() {
+        return this.liveSize;
+    }
+
+    private void remove(String key) {
+        Record previous = this.index.remove(key);
+        if (previous != null) {
+            this.liveSize -= previous.length;
+        }
+    }
+
+    /**
+     * Remove the least recently used records until the cache fits into the maximum size
+     */
+    private void evict() {
+        Iterator<Record> iterator = this.index.values().iterator();
+        while (this.liveSize > this.maxSize && iterator.hasNext()) {
+            this.liveSize -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Append a record to the end of the data file
+     *
+     * @param key     The key of the record
+     * @param payload The serialized lyrics
+     * @return The position of the payload in the data file
+     */
+    private long append(String key, byte[] payload) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length + key.length() + 8);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeUTF(key);
+        out.writeInt(payload.length);
+
+        long position = this.data.length();
+        this.data.seek(position);
+        this.data.write(buffer.toByteArray());
+        this.data.write(payload);
+
+        return position + buffer.size();
+    }
+
+    /**
+     * Rewrite the data file with the records that are still referenced by the index
+     */
+    private void compact() throws IOException {
+        File temporary = new File(this.directory, DATA_FILE + ".tmp");
+        LinkedHashMap<String, Record> compacted = new LinkedHashMap<>(this.index.size());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            for (Map.Entry<String, Record> entry : this.index.entrySet()) {
+                Record record = entry.getValue();
+
+                byte[] payload = new byte[record.length];
+                this.data.seek(record.position);
+                this.data.readFully(payload);
+
+                out.writeUTF(entry.getKey());
+                out.writeInt(payload.length);
+                compacted.put(entry.getKey(), new Record(out.size(), payload.length));
+                out.write(payload);
+            }
+        }
+
+        // Swap the data files
+        this.data.close();
+        Files.move(temporary.toPath(), this.dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        this.data = new RandomAccessFile(this.dataFile, "rw");
+
+        // The order of the compacted map is the previous access order
+        this.index.clear();
+        this.index.putAll(compacted);
+    }
+
+    /**
+     * Load the index file and recover records that were appended after the index was written
+     */
+    private void loadIndex() throws IOException {
+        long indexedLength = 0;
+
+        if (this.indexFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.indexFile)))) {
+                if (in.readInt() == INDEX_VERSION) {
+                    indexedLength = in.readLong();
+
+                    int size = in.readInt();
+                    for (int i = 0; i < size; i++) {
+                        String key = in.readUTF();
+                        Record record = new Record(in.readLong(), in.readInt());
+                        this.index.put(key, record);
+                        this.liveSize += record.length;
+                    }
+                } else {
+                    // The records were written in a previous format
+                    this.data.setLength(0);
+                }
+            } catch (IOException e) {
+                // Rebuild the index from the data file
+                e.printStackTrace();
+                this.index.clear();
+                this.liveSize = 0;
+                indexedLength = 0;
+            }
+        }
+
+        // The data file was replaced or truncated, the index is no longer valid
+        if (indexedLength > this.data.length()) {
+            this.index.clear();
+            this.liveSize = 0;
+            indexedLength = 0;
+        }
+
+        // Scan the records that are not part of the index yet
+        if (indexedLength < this.data.length()) {
+            this.scan(indexedLength);
+            this.evict();
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Add all records of the data file after the given position to the index
+     *
+     * @param position The position in the data file to start scanning at
+     */
+    private void scan(long position) throws IOException {
+        this.data.seek(position);
+
+        try {
+            while (position < this.data.length()) {
+                String key = this.data.readUTF();
+                int length = this.data.readInt();
+                long payloadPosition = this.data.getFilePointer();
+
+                // Incomplete record
+                if (length < 0 || payloadPosition + length > this.data.length()) {
+                    break;
+                }
+
+                this.remove(key);
+                this.index.put(key, new Record(payloadPosition, length));
+                this.liveSize += length;
+
+                position = payloadPosition + length;
+                this.data.seek(position);
+            }
+        } catch (EOFException e) {
+            // Incomplete record at the end of the file
+        }
+
+        // Cut off the incomplete record
+        this.data.setLength(position);
+    }
+
+    /**
+     * Position and length of a serialized lyrics payload in the data file
+     */
+    private static class Record {
+
+        private final long position;
+        private final int length;
+
+        private Record(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
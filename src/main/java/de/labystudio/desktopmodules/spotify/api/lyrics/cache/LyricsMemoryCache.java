@@ -0,0 +1,168 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.cache;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of the most recently used lyrics.
+ * The cache is limited by the amount of entries and the estimated size of all lyrics in bytes.
+ *
+ * @author LabyStudio
+ */
+public class LyricsMemoryCache {
+
+    /**
+     * Default maximum amount of cached lyrics
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    /**
+     * Default maximum estimated size in bytes of all cached lyrics
+     */
+    public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxSize;
+
+    /**
+     * All cached lyrics in least recently used order
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Estimated size of all cached lyrics
+     */
+    private long size;
+
+    /**
+     * Create a cache with the given bounds
+     *
+     * @param maxEntries Maximum amount of cached lyrics
+     * @param maxSize    Maximum estimated size in bytes of all cached lyrics
+     */
+    public LyricsMemoryCache(int maxEntries, long maxSize) {
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create a cache with the default bounds
+     */
+    public LyricsMemoryCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Get the cached lyrics of the given track
+     *
+     * @param track The track to get the lyrics of
+     * @return The cached lyrics or null if the track is not cached
+     */
+    public synchronized Lyrics get(Track track) {
+        String key = LyricsDiskCache.keyOf(track);
+        Entry entry = key == null ? null : this.entries.get(key);
+
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+
+        this.hits.incrementAndGet();
+        return entry.lyrics;
+    }
+
+    /**
+     * Store the lyrics of the given track
+     *
+     * @param track  The track of the lyrics
+     * @param lyrics The lyrics to store
+     */
+    public synchronized void put(Track track, Lyrics lyrics) {
+        String key = LyricsDiskCache.keyOf(track);
+        if (key == null || lyrics == null) {
+            return;
+        }
+
+        long estimatedSize = lyrics.getRetainedSize();
+        if (estimatedSize > this.maxSize) {
+            return;
+        }
+
+        // Replace the previous entry
+        Entry previous = this.entries.put(key, new Entry(lyrics, estimatedSize));
+        if (previous != null) {
+            this.size -= previous.size;
+        }
+        this.size += estimatedSize;
+
+        // Evict the least recently used lyrics
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while ((this.size > this.maxSize || this.entries.size() > this.maxEntries) && iterator.hasNext()) {
+            this.size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Remove all cached lyrics
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Amount of cached lyrics
+     *
+     * @return Amount of entries
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Estimated size of all cached lyrics
+     *
+     * @return Size in bytes
+     */
+    public synchronized long getEstimatedSize() {
+        return this.size;
+    }
+
+    /**
+     * Amount of requests that were answered by the cache
+     *
+     * @return Hit count
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Amount of requests for tracks that were not cached
+     *
+     * @return Miss count
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    private static class Entry {
+
+        private final Lyrics lyrics;
+        private final long size;
+
+        private Entry(Lyrics lyrics, long size) {
+            this.lyrics = lyrics;
+            this.size = size;
+        }
+    }
+}
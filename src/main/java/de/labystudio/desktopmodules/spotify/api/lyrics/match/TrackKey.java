@@ -0,0 +1,308 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.match;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized name, artists and duration of a track or of a candidate of a lyrics source.
+ * <p>
+ * The text is lower case without diacritics and punctuation. Version suffixes like "(feat. X)",
+ * "[Remastered 2011]" or "- Live" are removed from the core title. Suffixes that describe a different
+ * recording like live or acoustic versions are remembered as variants.
+ *
+ * @author LabyStudio
+ */
+public class TrackKey {
+
+    /**
+     * Words of a bracket or dash suffix that only describe the version of a track
+     */
+    private static final Set<String> VERSION_WORDS = new HashSet<>();
+
+    /**
+     * Words of a suffix that describe a different recording of the track
+     */
+    private static final String[] VARIANT_WORDS = {"live", "acoustic", "remix", "instrumental", "demo", "karaoke"};
+
+    /**
+     * Separators of multiple artists in a credit.
+     * A lowercase " x " only separates two non-empty credits, so artists like "Lil Nas X" stay intact.
+     */
+    private static final Pattern ARTIST_SEPARATOR = Pattern.compile(
+            "\\s*(?:[,;/&+]|\\b(?:and|feat\\.?|ft\\.?|featuring|with|vs\\.?)\\s)\\s*"
+                    + "|(?<=\\S)\\s+(?-i:x)\\s+(?=[^\\s,;/&+])",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * Featured artists in the title without brackets
+     */
+    private static final Pattern FEATURE_SUFFIX = Pattern.compile("\\s(?:feat\\.?|ft\\.|featuring)\\s.*$", Pattern.CASE_INSENSITIVE);
+
+    static {
+        Collections.addAll(VERSION_WORDS,
+                "feat", "ft", "featuring", "with", "from", "remaster", "remastered", "version", "edit", "mix",
+                "radio", "single", "album", "mono", "stereo", "explicit", "clean", "deluxe", "bonus", "original",
+                "extended", "edition", "session", "sessions", "unplugged", "recorded", "anniversary");
+        Collections.addAll(VERSION_WORDS, VARIANT_WORDS);
+    }
+
+    private final String title;
+    private final String coreTitle;
+    private final String artist;
+    private final Set<String> artists;
+    private final int variants;
+    private final long duration;
+
+    private TrackKey(String name, String[] artists, long duration) {
+        // Remove the version suffixes and remember the variants
+        StringBuilder suffixes = new StringBuilder();
+        String core = stripSuffixes(name, suffixes);
+
+        this.title = normalize(name);
+        this.coreTitle = normalize(core);
+        this.variants = variantsOf(normalize(suffixes.toString()));
+        this.duration = duration;
+
+        // Split all artist credits into single artists
+        Set<String> normalizedArtists = new HashSet<>();
+        StringBuilder credit = new StringBuilder();
+        for (String artist : artists) {
+            if (artist == null) {
+                continue;
+            }
+            credit.append(artist).append(' ');
+
+            for (String part : ARTIST_SEPARATOR.split(artist)) {
+                String normalized = normalize(part);
+
+                // "The Beatles" and "Beatles" are the same artist
+                if (normalized.startsWith("the ")) {
+                    normalized = normalized.substring(4);
+                }
+
+                if (!normalized.isEmpty()) {
+                    normalizedArtists.add(normalized);
+                }
+            }
+        }
+        this.artist = normalize(credit.toString());
+        this.artists = normalizedArtists;
+    }
+
+    /**
+     * Create the key of a track
+     *
+     * @param name     The name of the track
+     * @param artist   The artist credit of the track (Can contain multiple artists)
+     * @param duration The duration in milliseconds or 0 if unknown
+     * @return The normalized key
+     */
+    public static TrackKey of(String name, String artist, long duration) {
+        return new TrackKey(name == null ? "" : name, new String[]{artist}, duration);
+    }
+
+    /**
+     * Create the key of a track with multiple artist credits
+     *
+     * @param name     The name of the track
+     * @param artists  The artist credits of the track
+     * @param duration The duration in milliseconds or 0 if unknown
+     * @return The normalized key
+     */
+    public static TrackKey of(String name, String[] artists, long duration) {
+        return new TrackKey(name == null ? "" : name, artists == null ? new String[0] : artists, duration);
+    }
+
+    /**
+     * Convert the text to lower case and remove diacritics, punctuation and repeated whitespaces
+     *
+     * @param text The text to normalize
+     * @return The normalized words separated by a single space
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean separator = false;
+
+        for (int i = 0; i < decomposed.length(); ) {
+            int codePoint = decomposed.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            // Drop diacritics and apostrophes inside of words
+            int type = Character.getType(codePoint);
+            if (type == Character.NON_SPACING_MARK || codePoint == '\'' || codePoint == '\u2019') {
+                continue;
+            }
+
+            if (!Character.isLetterOrDigit(codePoint) && codePoint != '&') {
+                separator = true;
+                continue;
+            }
+
+            if (separator && builder.length() > 0) {
+                builder.append(' ');
+            }
+            separator = false;
+
+            appendFolded(builder, Character.toLowerCase(codePoint));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Append the letter and replace letters that have no decomposition
+     */
+    private static void appendFolded(StringBuilder builder, int codePoint) {
+        switch (codePoint) {
+            case '&':
+                builder.append("and");
+                break;
+            case '\u00DF':
+                builder.append("ss");
+                break;
+            case '\u00E6':
+                builder.append("ae");
+                break;
+            case '\u0153':
+                builder.append("oe");
+                break;
+            case '\u00F8':
+                builder.append('o');
+                break;
+            case '\u0142':
+                builder.append('l');
+                break;
+            case '\u0111':
+                builder.append('d');
+                break;
+            case '\u0131':
+                builder.append('i');
+                break;
+            default:
+                builder.appendCodePoint(codePoint);
+                break;
+        }
+    }
+
+    /**
+     * Remove bracket and dash suffixes that only describe the version of the track
+     *
+     * @param name     The name of the track
+     * @param suffixes Collects the removed suffixes
+     * @return The name without version suffixes
+     */
+    private static String stripSuffixes(String name, StringBuilder suffixes) {
+        StringBuilder core = new StringBuilder(name.length());
+
+        // Remove brackets that contain a version word
+        int i = 0;
+        while (i < name.length()) {
+            char c = name.charAt(i);
+            char close = c == '(' ? ')' : c == '[' ? ']' : 0;
+            int end = close == 0 ? -1 : name.indexOf(close, i + 1);
+
+            if (end != -1) {
+                String content = name.substring(i + 1, end);
+                if (containsVersionWord(content)) {
+                    suffixes.append(content).append(' ');
+                    i = end + 1;
+                    continue;
+                }
+            }
+
+            core.append(c);
+            i++;
+        }
+
+        // Remove a dash suffix that contains a version word
+        String result = core.toString();
+        int dash = result.lastIndexOf(" - ");
+        if (dash > 0 && containsVersionWord(result.substring(dash + 3))) {
+            suffixes.append(result.substring(dash + 3)).append(' ');
+            result = result.substring(0, dash);
+        }
+
+        // Remove featured artists without brackets
+        return FEATURE_SUFFIX.matcher(result).replaceFirst("");
+    }
+
+    private static boolean containsVersionWord(String text) {
+        for (String word : normalize(text).split(" ")) {
+            if (VERSION_WORDS.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int variantsOf(String suffixes) {
+        int variants = 0;
+        for (String word : suffixes.split(" ")) {
+            for (int i = 0; i < VARIANT_WORDS.length; i++) {
+                if (VARIANT_WORDS[i].equals(word)) {
+                    variants |= 1 << i;
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Normalized full title including all suffixes
+     *
+     * @return The normalized title
+     */
+    public String getTitle() {
+        return this.title;
+    }
+
+    /**
+     * Normalized title without version suffixes
+     *
+     * @return The normalized core title
+     */
+    public String getCoreTitle() {
+        return this.coreTitle;
+    }
+
+    /**
+     * Normalized full artist credit
+     *
+     * @return All artists as a single normalized string
+     */
+    public String getArtist() {
+        return this.artist;
+    }
+
+    /**
+     * All single artists of the credit
+     *
+     * @return Set of normalized artist names
+     */
+    public Set<String> getArtists() {
+        return this.artists;
+    }
+
+    /**
+     * Bit mask of the recording variants like live or acoustic
+     *
+     * @return Variant bits, 0 for the regular recording
+     */
+    public int getVariants() {
+        return this.variants;
+    }
+
+    /**
+     * Duration of the track
+     *
+     * @return Duration in milliseconds or 0 if unknown
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+}
@@ -0,0 +1,191 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.match;
+
+import de.labystudio.spotifyapi.model.Track;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Scores the candidates of a lyrics source against the requested track.
+ * <p>
+ * The score is the product of the title, artist, duration and variant scores between 0 and 1.
+ * Candidates below {@link #MIN_SCORE} are rejected, a score of {@link #EXACT_SCORE} can't be improved.
+ * The normalized key of a track is created once and shared by all sources.
+ *
+ * @author LabyStudio
+ */
+public class TrackMatcher {
+
+    /**
+     * Minimum score of a candidate to be accepted
+     */
+    public static final double MIN_SCORE = 0.5;
+
+    /**
+     * Score of a candidate that matches the track exactly
+     */
+    public static final double EXACT_SCORE = 1.0;
+
+    /**
+     * Difference in milliseconds that is still considered as the same duration
+     */
+    private static final long DURATION_TOLERANCE = 2000;
+
+    /**
+     * Maximum difference in milliseconds of the duration, synced lyrics of longer recordings are off
+     */
+    private static final long MAX_DURATION_DIFFERENCE = 6000;
+
+    private static final Map<Track, TrackMatcher> MATCHERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final TrackKey key;
+    private final String primaryArtist;
+
+    private TrackMatcher(Track track) {
+        this.key = TrackKey.of(track.getName(), track.getArtist(), track.getLength());
+
+        // The first artist of the credit for search queries
+        String artist = track.getArtist() == null ? "" : track.getArtist();
+        for (String separator : new String[]{",", "&", " feat.", " ft."}) {
+            int index = artist.indexOf(separator);
+            if (index > 0) {
+                artist = artist.substring(0, index);
+            }
+        }
+        this.primaryArtist = artist.trim();
+    }
+
+    /**
+     * Get the matcher of the given track
+     *
+     * @param track The requested track
+     * @return The matcher with the precomputed key of the track
+     */
+    public static TrackMatcher of(Track track) {
+        return MATCHERS.computeIfAbsent(track, TrackMatcher::new);
+    }
+
+    /**
+     * Score a candidate
+     *
+     * @param name     The name of the candidate
+     * @param artist   The artist credit of the candidate
+     * @param duration The duration of the candidate in milliseconds or 0 if unknown
+     * @return The score between 0 and 1
+     */
+    public double score(String name, String artist, long duration) {
+        return this.score(TrackKey.of(name, artist, duration));
+    }
+
+    /**
+     * Score a candidate with multiple artist credits
+     *
+     * @param name     The name of the candidate
+     * @param artists  The artist credits of the candidate
+     * @param duration The duration of the candidate in milliseconds or 0 if unknown
+     * @return The score between 0 and 1
+     */
+    public double score(String name, String[] artists, long duration) {
+        return this.score(TrackKey.of(name, artists, duration));
+    }
+
+    /**
+     * Score a candidate
+     *
+     * @param candidate The key of the candidate
+     * @return The score between 0 and 1, candidates below {@link #MIN_SCORE} don't match
+     */
+    public double score(TrackKey candidate) {
+        double score = this.scoreTitle(candidate);
+        if (score == 0) {
+            return 0;
+        }
+
+        score *= this.scoreArtist(candidate);
+        score *= this.scoreDuration(candidate);
+
+        // Live or acoustic versions have different timings
+        if (candidate.getVariants() != this.key.getVariants()) {
+            score *= 0.4;
+        }
+
+        return score;
+    }
+
+    /**
+     * Check if a candidate is the requested track
+     *
+     * @param name     The name of the candidate
+     * @param artist   The artist credit of the candidate
+     * @param duration The duration of the candidate in milliseconds or 0 if unknown
+     * @return The score reaches the minimum score
+     */
+    public boolean matches(String name, String artist, long duration) {
+        return this.score(name, artist, duration) >= MIN_SCORE;
+    }
+
+    private double scoreTitle(TrackKey candidate) {
+        if (candidate.getTitle().equals(this.key.getTitle())) {
+            return 1.0;
+        }
+        if (!candidate.getCoreTitle().isEmpty() && candidate.getCoreTitle().equals(this.key.getCoreTitle())) {
+            return 0.9;
+        }
+        return 0;
+    }
+
+    private double scoreArtist(TrackKey candidate) {
+        if (candidate.getArtist().equals(this.key.getArtist()) || candidate.getArtists().equals(this.key.getArtists())) {
+            return 1.0;
+        }
+
+        // Count the artists that are credited in both tracks
+        int common = 0;
+        for (String artist : candidate.getArtists()) {
+            if (this.key.getArtists().contains(artist)) {
+                common++;
+            }
+        }
+        if (common == 0) {
+            return 0;
+        }
+
+        int total = Math.max(candidate.getArtists().size(), this.key.getArtists().size());
+        return 0.7 + 0.3 * common / total;
+    }
+
+    private double scoreDuration(TrackKey candidate) {
+        // Unknown duration
+        if (candidate.getDuration() <= 0 || this.key.getDuration() <= 0) {
+            return 0.9;
+        }
+
+        long difference = Math.abs(candidate.getDuration() - this.key.getDuration());
+        if (difference <= DURATION_TOLERANCE) {
+            return 1.0;
+        }
+        if (difference > MAX_DURATION_DIFFERENCE) {
+            return 0;
+        }
+        return 1.0 - 0.5 * (difference - DURATION_TOLERANCE) / (MAX_DURATION_DIFFERENCE - DURATION_TOLERANCE);
+    }
+
+    /**
+     * Normalized key of the requested track
+     *
+     * @return The key of the track
+     */
+    public TrackKey getKey() {
+        return this.key;
+    }
+
+    /**
+     * The first artist of the credit to use in search queries
+     *
+     * @return The artist name as it is credited
+     */
+    public String getPrimaryArtist() {
+        return this.primaryArtist;
+    }
+}
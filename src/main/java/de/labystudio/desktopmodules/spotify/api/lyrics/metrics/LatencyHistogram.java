@@ -0,0 +1,98 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations to report latency percentiles.
+ * <p>
+ * Durations are recorded in microseconds into logarithmic buckets. Each power of two is split into
+ * eight sub buckets, so a reported percentile is at most 12.5% off of the actual value.
+ *
+ * @author LabyStudio
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Record a duration
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        this.counts.incrementAndGet(indexOf(Math.max(0, nanos / 1000)));
+    }
+
+    /**
+     * Get the duration at the given percentile
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The duration in milliseconds (0 if nothing was recorded)
+     */
+    public double getPercentile(double percentile) {
+        long total = this.getCount();
+        if (total == 0) {
+            return 0;
+        }
+
+        // The rank of the requested sample
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return valueOf(i) / 1000.0;
+            }
+        }
+        return valueOf(BUCKETS - 1) / 1000.0;
+    }
+
+    /**
+     * Amount of recorded durations
+     *
+     * @return Sample count
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += this.counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Remove all recorded durations
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        // Position of the highest bit selects the power of two, the following bits the sub bucket
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long valueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        // Lowest value of the bucket
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS | subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,279 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.metrics;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.cache.LyricsMemoryCache;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Performance metrics of the lyrics lookup, caches and parser.
+ * The metrics are published as MBeans in the domain {@value #DOMAIN} to watch them with any JMX tool.
+ *
+ * @author LabyStudio
+ */
+public class LyricsMetrics implements LyricsMetricsMBean {
+
+    public static final String DOMAIN = "de.labystudio.desktopmodules.spotify";
+
+    private static final LyricsMetrics INSTANCE = new LyricsMetrics();
+
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram trackChangeLatency = new LatencyHistogram();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+
+    private final AtomicLong diskCacheHits = new AtomicLong();
+    private final AtomicLong diskCacheMisses = new AtomicLong();
+    private final AtomicLong lookupTimeouts = new AtomicLong();
+
+    /**
+     * Names of all registered MBeans
+     */
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    /**
+     * Memory cache of the current provider (Can be null)
+     */
+    private volatile LyricsMemoryCache memoryCache;
+
+    private LyricsMetrics() {
+    }
+
+    /**
+     * Get the metrics of this addon
+     *
+     * @return The shared metrics instance
+     */
+    public static LyricsMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publish the metrics and the metrics of the given sources over JMX.
+     * Previously registered MBeans are replaced.
+     *
+     * @param sources     The sources of the provider
+     * @param memoryCache The memory cache of the provider
+     */
+    public synchronized void register(List<LyricsSource> sources, LyricsMemoryCache memoryCache) {
+        this.unregister();
+        this.memoryCache = memoryCache;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            this.register(server, new ObjectName(DOMAIN + ":type=Lyrics"), this);
+            for (LyricsSource source : sources) {
+                this.register(server, nameOf(source), new SourceMetrics(source.getHealth()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Publish the metrics of a source that was added after the provider was created, like the local library.
+     * A previously registered source with the same name is replaced.
+     *
+     * @param source The source to publish
+     */
+    public synchronized void register(LyricsSource source) {
+        try {
+            this.register(ManagementFactory.getPlatformMBeanServer(), nameOf(source), new SourceMetrics(source.getHealth()));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Remove the metrics of a single source from the MBean server
+     *
+     * @param source The source to remove
+     */
+    public synchronized void unregister(LyricsSource source) {
+        try {
+            ObjectName name = nameOf(source);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (this.registered.remove(name) && server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Remove all MBeans of this addon from the MBean server
+     */
+    public synchronized void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : this.registered) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        this.registered.clear();
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object mBean) throws Exception {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(mBean, name);
+        if (!this.registered.contains(name)) {
+            this.registered.add(name);
+        }
+    }
+
+    private static ObjectName nameOf(LyricsSource source) throws Exception {
+        return new ObjectName(DOMAIN + ":type=LyricsSource,name=" + ObjectName.quote(source.getName()));
+    }
+
+    /**
+     * Record the duration of a lookup in the caches and sources
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordLookup(long nanos) {
+        this.lookupLatency.record(nanos);
+    }
+
+    /**
+     * Record a lookup that ran out of its time budget before any source delivered lyrics
+     */
+    public void recordTimeout() {
+        this.lookupTimeouts.incrementAndGet();
+    }
+
+    /**
+     * Record the time between a track change and the lyrics being available
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordTrackChange(long nanos) {
+        this.trackChangeLatency.record(nanos);
+    }
+
+    /**
+     * Record the time it took to parse a lyrics file
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordParse(long nanos) {
+        this.parseTime.record(nanos);
+    }
+
+    /**
+     * Record a lookup in the persistent cache
+     *
+     * @param hit The lyrics were in the cache
+     */
+    public void recordDiskCache(boolean hit) {
+        (hit ? this.diskCacheHits : this.diskCacheMisses).incrementAndGet();
+    }
+
+    @Override
+    public long getLookupCount() {
+        return this.lookupLatency.getCount();
+    }
+
+    @Override
+    public double getLookupLatencyP50() {
+        return this.lookupLatency.getPercentile(50);
+    }
+
+    @Override
+    public double getLookupLatencyP95() {
+        return this.lookupLatency.getPercentile(95);
+    }
+
+    @Override
+    public double getLookupLatencyP99() {
+        return this.lookupLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getLookupTimeouts() {
+        return this.lookupTimeouts.get();
+    }
+
+    @Override
+    public long getTrackChangeCount() {
+        return this.trackChangeLatency.getCount();
+    }
+
+    @Override
+    public double getTrackChangeToLyricsP50() {
+        return this.trackChangeLatency.getPercentile(50);
+    }
+
+    @Override
+    public double getTrackChangeToLyricsP95() {
+        return this.trackChangeLatency.getPercentile(95);
+    }
+
+    @Override
+    public double getTrackChangeToLyricsP99() {
+        return this.trackChangeLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getParseCount() {
+        return this.parseTime.getCount();
+    }
+
+    @Override
+    public double getParseTimeP50() {
+        return this.parseTime.getPercentile(50);
+    }
+
+    @Override
+    public double getParseTimeP95() {
+        return this.parseTime.getPercentile(95);
+    }
+
+    @Override
+    public double getParseTimeP99() {
+        return this.parseTime.getPercentile(99);
+    }
+
+    @Override
+    public long getMemoryCacheHits() {
+        LyricsMemoryCache cache = this.memoryCache;
+        return cache == null ? 0 : cache.getHits();
+    }
+
+    @Override
+    public long getMemoryCacheMisses() {
+        LyricsMemoryCache cache = this.memoryCache;
+        return cache == null ? 0 : cache.getMisses();
+    }
+
+    @Override
+    public long getDiskCacheHits() {
+        return this.diskCacheHits.get();
+    }
+
+    @Override
+    public long getDiskCacheMisses() {
+        return this.diskCacheMisses.get();
+    }
+
+    @Override
+    public void reset() {
+        this.lookupLatency.reset();
+        this.trackChangeLatency.reset();
+        this.parseTime.reset();
+        this.diskCacheHits.set(0);
+        this.diskCacheMisses.set(0);
+        this.lookupTimeouts.set(0);
+    }
+}
@@ -0,0 +1,45 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.metrics;
+
+/**
+ * JMX interface of the lyrics lookup metrics
+ *
+ * @author LabyStudio
+ */
+public interface LyricsMetricsMBean {
+
+    long getLookupCount();
+
+    double getLookupLatencyP50();
+
+    double getLookupLatencyP95();
+
+    double getLookupLatencyP99();
+
+    long getLookupTimeouts();
+
+    long getTrackChangeCount();
+
+    double getTrackChangeToLyricsP50();
+
+    double getTrackChangeToLyricsP95();
+
+    double getTrackChangeToLyricsP99();
+
+    long getParseCount();
+
+    double getParseTimeP50();
+
+    double getParseTimeP95();
+
+    double getParseTimeP99();
+
+    long getMemoryCacheHits();
+
+    long getMemoryCacheMisses();
+
+    long getDiskCacheHits();
+
+    long getDiskCacheMisses();
+
+    void reset();
+}
@@ -0,0 +1,72 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.metrics;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.SourceHealth;
+
+/**
+ * Exposes the health of a lyrics source over JMX
+ *
+ * @author LabyStudio
+ */
+public class SourceMetrics implements SourceMetricsMBean {
+
+    private final SourceHealth health;
+
+    public SourceMetrics(SourceHealth health) {
+        this.health = health;
+    }
+
+    @Override
+    public long getRequests() {
+        return this.health.getRequests();
+    }
+
+    @Override
+    public long getHits() {
+        return this.health.getHits();
+    }
+
+    @Override
+    public long getMisses() {
+        return this.health.getMisses();
+    }
+
+    @Override
+    public long getErrors() {
+        return this.health.getErrors();
+    }
+
+    @Override
+    public long getDeadlineExceeded() {
+        return this.health.getDeadlineExceeded();
+    }
+
+    @Override
+    public double getSuccessRate() {
+        return this.health.getSuccessRate();
+    }
+
+    @Override
+    public double getHitRate() {
+        return this.health.getHitRate();
+    }
+
+    @Override
+    public String getCircuitState() {
+        return this.health.getState().name();
+    }
+
+    @Override
+    public double getLatencyP50() {
+        return this.health.getLatencyHistogram().getPercentile(50);
+    }
+
+    @Override
+    public double getLatencyP95() {
+        return this.health.getLatencyHistogram().getPercentile(95);
+    }
+
+    @Override
+    public double getLatencyP99() {
+        return this.health.getLatencyHistogram().getPercentile(99);
+    }
+}
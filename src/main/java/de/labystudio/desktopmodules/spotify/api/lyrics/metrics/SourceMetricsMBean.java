@@ -0,0 +1,31 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.metrics;
+
+/**
+ * JMX interface of the metrics of a single lyrics source
+ *
+ * @author LabyStudio
+ */
+public interface SourceMetricsMBean {
+
+    long getRequests();
+
+    long getHits();
+
+    long getMisses();
+
+    long getErrors();
+
+    long getDeadlineExceeded();
+
+    double getSuccessRate();
+
+    double getHitRate();
+
+    String getCircuitState();
+
+    double getLatencyP50();
+
+    double getLatencyP95();
+
+    double getLatencyP99();
+}
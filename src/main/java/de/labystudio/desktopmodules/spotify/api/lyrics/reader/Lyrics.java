@@ -1,49 +1,101 @@
 package de.labystudio.desktopmodules.spotify.api.lyrics.reader;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * The lyrics of a song, containing all voice lines with a time offset
+ * <p>
+ * The voice lines are stored in columns: the offsets in a primitive array and the content as an index
+ * into a table of distinct lines. Repeated lines like the chorus are only stored once.
  *
  * @author LabyStudio
  */
 public class Lyrics {
 
     /**
-     * All voice lines of the song with an offset in milliseconds
+     * Offsets in milliseconds of all voice lines in ascending order
      */
-    private final List<VoiceLine> voiceLines = new ArrayList<>();
+    private final long[] offsets;
 
     /**
-     * Get the voice line of the song at the given offset
-     *
-     * @param offset The offset in milliseconds
-     * @param shift  Shift the voice line index to get the previous (-1) voice line or the next one (+1)
-     * @return The voice line at given input
+     * Index into the content table for each voice line
      */
-    public VoiceLine getVoiceLineAt(long offset, int shift) {
-        int size = this.voiceLines.size();
+    private final int[] contentIndices;
+
+    /**
+     * All distinct voice line contents
+     */
+    private final String[] contents;
+
+    private final List<VoiceLine> voiceLines = new VoiceLineList();
 
-        // Iterate all voice lines
-        for (int i = 0; i < size; i++) {
-            VoiceLine voiceLine = this.voiceLines.get(i);
+    /**
+     * Estimated heap size in bytes of this object
+     */
+    private final long retainedSize;
 
-            // If the voice line is above the given offset
-            if (voiceLine.getOffset() >= offset) {
-                // Shift the index
-                int shiftedIndex = i + shift;
+    /**
+     * Create lyrics from the given voice lines.
+     * The arrays are owned by the lyrics afterwards and must not be modified anymore.
+     *
+     * @param offsets  Offsets in milliseconds in ascending order
+     * @param contents Content of the voice line at the same index
+     */
+    public Lyrics(long[] offsets, String[] contents) {
+        if (offsets.length != contents.length) {
+            throw new IllegalArgumentException("Got " + offsets.length + " offsets for " + contents.length + " voice lines");
+        }
 
-                // Check if the index is out of range
-                boolean outOfRange = shiftedIndex < 0 || shiftedIndex >= size;
+        this.offsets = offsets;
+        this.contentIndices = new int[offsets.length];
 
-                // Get the voice line at the given index
-                return shift == 0 ? voiceLine : outOfRange ? shift == -1 ? voiceLine : null : this.voiceLines.get(shiftedIndex);
+        // Build the table of distinct contents
+        Map<String, Integer> table = new HashMap<>();
+        for (int i = 0; i < contents.length; i++) {
+            Integer index = table.get(contents[i]);
+            if (index == null) {
+                index = table.size();
+                table.put(contents[i], index);
             }
+            this.contentIndices[i] = index;
         }
 
-        // No voice line found with the given input
-        return null;
+        this.contents = new String[table.size()];
+        for (Map.Entry<String, Integer> entry : table.entrySet()) {
+            this.contents[entry.getValue()] = entry.getKey();
+        }
+
+        this.retainedSize = this.estimateSize();
+    }
+
+    /**
+     * Create lyrics from an already deduplicated content table
+     *
+     * @param offsets        Offsets in milliseconds in ascending order
+     * @param contentIndices Index into the content table for each voice line
+     * @param contents       All distinct voice line contents
+     */
+    Lyrics(long[] offsets, int[] contentIndices, String[] contents) {
+        this.offsets = offsets;
+        this.contentIndices = contentIndices;
+        this.contents = contents;
+        this.retainedSize = this.estimateSize();
+    }
+
+    /**
+     * Get the voice line of the song at the given offset
+     *
+     * @param offset The offset in milliseconds
+     * @param shift  Shift the voice line index to get the previous (-1) voice line or the next one (+1)
+     * @return The voice line at given input
+     */
+    public VoiceLine getVoiceLineAt(long offset, int shift) {
+        int index = this.resolve(this.indexAt(offset, 0, this.offsets.length), shift);
+        return index == -1 ? null : this.getVoiceLine(index);
     }
 
     /**
@@ -56,13 +108,82 @@ public class Lyrics {
         return getVoiceLineAt(offset, 0);
     }
 
+    /**
+     * Create a cursor to look up the voice lines during playback
+     *
+     * @return A new cursor at the start of the song
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Get the voice line at the given index
+     *
+     * @param index Index of the voice line
+     * @return The voice line at the index
+     */
+    public VoiceLine getVoiceLine(int index) {
+        return new VoiceLine(this.offsets[index], this.getContent(index));
+    }
+
+    /**
+     * Get the content of the voice line at the given index
+     *
+     * @param index Index of the voice line
+     * @return The actual lyrics text
+     */
+    public String getContent(int index) {
+        return this.contents[this.contentIndices[index]];
+    }
+
+    /**
+     * Get the index of the voice line content in the content table.
+     * Voice lines with the same text share the same content index.
+     *
+     * @param index Index of the voice line
+     * @return Index of the content between 0 and {@link #getDistinctLines()}
+     */
+    public int getContentIndex(int index) {
+        return this.contentIndices[index];
+    }
+
+    /**
+     * Get an entry of the content table
+     *
+     * @param contentIndex Index of the content
+     * @return The actual lyrics text
+     */
+    public String getDistinctContent(int contentIndex) {
+        return this.contents[contentIndex];
+    }
+
+    /**
+     * Get the offset of the voice line at the given index
+     *
+     * @param index Index of the voice line
+     * @return Offset in milliseconds
+     */
+    public long getOffset(int index) {
+        return this.offsets[index];
+    }
+
     /**
      * Get all voice lines of the lyrics
      *
-     * @return A list of all voice lines
+     * @return An unmodifiable list view of all voice lines
      */
     public List<VoiceLine> getVoiceLines() {
-        return voiceLines;
+        return this.voiceLines;
+    }
+
+    /**
+     * Amount of voice lines
+     *
+     * @return Amount of voice lines
+     */
+    public int size() {
+        return this.offsets.length;
     }
 
     /**
@@ -71,6 +192,158 @@ public class Lyrics {
      * @return Voice lines are available
      */
     public boolean hasLines() {
-        return !this.voiceLines.isEmpty();
+        return this.offsets.length != 0;
+    }
+
+    /**
+     * Amount of distinct voice line contents
+     *
+     * @return Size of the content table
+     */
+    public int getDistinctLines() {
+        return this.contents.length;
+    }
+
+    /**
+     * Estimated heap size of the lyrics including all voice line contents
+     *
+     * @return Size in bytes
+     */
+    public long getRetainedSize() {
+        return this.retainedSize;
+    }
+
+    private long estimateSize() {
+        // Object header and fields, list view, offset and index arrays
+        long size = 32 + 16 + (16 + this.offsets.length * 8L) + (16 + this.contentIndices.length * 4L);
+
+        // Content table with the string objects and their characters
+        size += 16 + this.contents.length * 4L;
+        for (String content : this.contents) {
+            size += 24 + 16 + content.length() * 2L;
+        }
+        return size;
+    }
+
+    /**
+     * Find the first voice line with an offset above or equal to the given offset
+     *
+     * @param offset The offset in milliseconds
+     * @param from   First index to search (inclusive)
+     * @param to     Last index to search (exclusive)
+     * @return The index of the voice line or the amount of voice lines if there is none
+     */
+    private int indexAt(long offset, int from, int to) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (this.offsets[middle] < offset) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Shift the index of a voice line
+     *
+     * @param index Index of the voice line at the current offset
+     * @param shift  Shift the voice line index to get the previous (-1) voice line or the next one (+1)
+     * @return The shifted index or -1 if there is no voice line
+     */
+    private int resolve(int index, int shift) {
+        // No voice line found with the given input
+        if (index >= this.offsets.length) {
+            return -1;
+        }
+
+        // Check if the index is out of range
+        int shiftedIndex = index + shift;
+        if (shiftedIndex < 0 || shiftedIndex >= this.offsets.length) {
+            return shift == -1 ? index : -1;
+        }
+
+        return shiftedIndex;
+    }
+
+    /**
+     * Looks up the voice lines of a playing song.
+     * The cursor moves forward step by step during normal playback
+     * and falls back to a binary search if the offset jumps.
+     */
+    public class Cursor {
+
+        /**
+         * Maximum amount of voice lines to step over before using a binary search
+         */
+        private static final int MAX_STEPS = 8;
+
+        private long offset = Long.MIN_VALUE;
+        private int index;
+
+        /**
+         * Get the indices of the voice lines around the given offset.
+         * The voice line at index i of the window is the same as {@link #getVoiceLineAt(long, int)} with shift + i.
+         *
+         * @param offset The offset in milliseconds
+         * @param shift  Shift of the first voice line of the window
+         * @param window Array to fill with the indices of the voice lines, -1 if there is no voice line
+         */
+        public void fill(long offset, int shift, int[] window) {
+            int index = this.seek(offset);
+            for (int i = 0; i < window.length; i++) {
+                window[i] = resolve(index, shift + i);
+            }
+        }
+
+        /**
+         * Get the lyrics of this cursor
+         *
+         * @return The lyrics
+         */
+        public Lyrics getLyrics() {
+            return Lyrics.this;
+        }
+
+        private int seek(long offset) {
+            int size = offsets.length;
+            int index = this.index;
+
+            if (offset < this.offset) {
+                // Jumped backwards
+                index = indexAt(offset, 0, index);
+            } else {
+                // Step forward until the offset is reached
+                int steps = 0;
+                while (index < size && offsets[index] < offset) {
+                    if (++steps > MAX_STEPS) {
+                        index = indexAt(offset, index, size);
+                        break;
+                    }
+                    index++;
+                }
+            }
+
+            this.offset = offset;
+            this.index = index;
+            return index;
+        }
+    }
+
+    /**
+     * Read only view of the voice lines
+     */
+    private class VoiceLineList extends AbstractList<VoiceLine> implements RandomAccess {
+
+        @Override
+        public VoiceLine get(int index) {
+            return getVoiceLine(index);
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
     }
 }
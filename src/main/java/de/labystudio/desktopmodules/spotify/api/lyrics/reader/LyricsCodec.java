@@ -0,0 +1,250 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary format of lyrics that can be loaded without parsing the LRC text again.
+ * <p>
+ * Layout: magic "LYC", version byte, the table of distinct voice line contents as length prefixed UTF-8
+ * strings, the amount of voice lines, the offsets as zigzag encoded deltas to the previous offset and
+ * the content index of each voice line. All numbers are unsigned LEB128 varints.
+ *
+ * @author LabyStudio
+ */
+public class LyricsCodec {
+
+    /**
+     * Version of the format, the decoder rejects data of other versions
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'L', 'Y', 'C'};
+
+    private LyricsCodec() {
+    }
+
+    /**
+     * Encode the lyrics
+     *
+     * @param lyrics The lyrics to encode
+     * @return The binary representation of the lyrics
+     */
+    public static byte[] encode(Lyrics lyrics) {
+        int distinctLines = lyrics.getDistinctLines();
+        int size = lyrics.size();
+
+        // Encode the content table first to know the size of the output
+        byte[][] table = new byte[distinctLines][];
+        int capacity = MAGIC.length + 1 + 5 + 5 + size * 15;
+        for (int i = 0; i < distinctLines; i++) {
+            table[i] = lyrics.getDistinctContent(i).getBytes(StandardCharsets.UTF_8);
+            capacity += 5 + table[i].length;
+        }
+
+        Output out = new Output(capacity);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+
+        // Content table
+        out.writeVarInt(distinctLines);
+        for (byte[] content : table) {
+            out.writeVarInt(content.length);
+            out.write(content);
+        }
+
+        // Offsets as deltas, they are usually small and ascending
+        out.writeVarInt(size);
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long offset = lyrics.getOffset(i);
+            out.writeVarLong(zigzag(offset - previous));
+            previous = offset;
+        }
+
+        // Content of each voice line
+        for (int i = 0; i < size; i++) {
+            out.writeVarInt(lyrics.getContentIndex(i));
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode lyrics
+     *
+     * @param data The binary representation of the lyrics
+     * @return The decoded lyrics
+     * @throws IOException If the data is malformed or of another version
+     */
+    public static Lyrics decode(byte[] data) throws IOException {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decode lyrics from a part of the given array
+     *
+     * @param data   The array that contains the binary representation of the lyrics
+     * @param offset Start of the lyrics in the array
+     * @param length Length of the lyrics in bytes
+     * @return The decoded lyrics
+     * @throws IOException If the data is malformed or of another version
+     */
+    public static Lyrics decode(byte[] data, int offset, int length) throws IOException {
+        Input in = new Input(data, offset, offset + length);
+
+        for (byte magic : MAGIC) {
+            if (in.readByte() != magic) {
+                throw new IOException("Not a lyrics file");
+            }
+        }
+
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported lyrics version " + version);
+        }
+
+        // Every entry takes at least one byte
+        int distinctLines = in.readLength();
+        String[] contents = new String[distinctLines];
+        for (int i = 0; i < distinctLines; i++) {
+            contents[i] = in.readString(in.readLength());
+        }
+
+        // Every voice line takes at least two bytes
+        int size = in.readLength();
+        long[] offsets = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(in.readVarLong());
+            offsets[i] = previous;
+        }
+
+        int[] contentIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            int index = in.readVarInt();
+            if (index < 0 || index >= distinctLines) {
+                throw new IOException("Invalid content index " + index);
+            }
+            contentIndices[i] = index;
+        }
+
+        return new Lyrics(offsets, contentIndices, contents);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Growable output buffer
+     */
+    private static class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int length) {
+            if (this.position + length > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + length));
+            }
+        }
+
+        private void writeByte(int value) {
+            this.ensure(1);
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        private void write(byte[] bytes) {
+            this.ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        private void writeVarInt(int value) {
+            this.writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            this.ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+    }
+
+    /**
+     * Bounds checked reader of a byte array
+     */
+    private static class Input {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        private Input(byte[] data, int position, int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        private int readByte() throws IOException {
+            if (this.position >= this.limit) {
+                throw new IOException("Unexpected end of lyrics data");
+            }
+            return this.data[this.position++];
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = this.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readVarInt() throws IOException {
+            long value = this.readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Varint out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Read a length that can't be larger than the remaining data
+         */
+        private int readLength() throws IOException {
+            int length = this.readVarInt();
+            if (length < 0 || length > this.limit - this.position) {
+                throw new IOException("Invalid length " + length);
+            }
+            return length;
+        }
+
+        private String readString(int length) {
+            String value = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+    }
+}
@@ -1,24 +1,45 @@
 package de.labystudio.desktopmodules.spotify.api.lyrics.reader;
 
+import de.labystudio.desktopmodules.spotify.api.lyrics.metrics.LyricsMetrics;
+
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * A class to read lyric files
+ * <p>
+ * The file is parsed in a single pass over its characters. Every line may start with multiple timecodes
+ * in the format [mm:ss.xx], [mm:ss] or [mmm:ss.xxx] followed by the content of the voice line.
+ * The [offset:+/-ms] header shifts all timecodes, a positive offset shows the lyrics sooner.
  *
  * @author LabyStudio
  */
 public class LyricsReader {
 
-    private static final Pattern TIME_PATTERN = Pattern.compile("[\\[]([0-9]{2}):([0-9]{2}).([0-9]*)[\\]]");
-    private static final Comparator<VoiceLine> OFFSET_COMPARATOR = Comparator.comparingLong(VoiceLine::getOffset);
+    /**
+     * Timecodes above this offset are ignored to keep the sort keys in range
+     */
+    private static final long MAX_OFFSET = Integer.MAX_VALUE;
+
+    private static final char[] OFFSET_TAG = "offset:".toCharArray();
+
+    private final InputStream inputStream;
+    private final String lyricsText;
+
+    private char[] data;
+    private int length;
 
-    private final Scanner scanner;
+    // Parsed timecodes and the content of their voice line
+    private long[] offsets = new long[64];
+    private String[] contents = new String[64];
+    private int count;
+
+    // Value of the [offset:] header
+    private long offset;
 
     /**
      * Create a lyrics reader from an input stream
@@ -26,7 +47,8 @@ public class LyricsReader {
      * @param inputStream Lyrics text input stream
      */
     public LyricsReader(InputStream inputStream) {
-        this.scanner = new Scanner(inputStream, "UTF-8");
+        this.inputStream = inputStream;
+        this.lyricsText = null;
     }
 
     /**
@@ -35,7 +57,8 @@ public class LyricsReader {
      * @param lyricsText Lyrics text
      */
     public LyricsReader(String lyricsText) {
-        this.scanner = new Scanner(lyricsText);
+        this.inputStream = null;
+        this.lyricsText = lyricsText;
     }
 
     /**
@@ -45,77 +68,274 @@ public class LyricsReader {
      * @return The lyrics object. Voice lines are empty if the reading fails.
      */
     public Lyrics readLyrics() {
-        Lyrics lyric = new Lyrics();
-        List<VoiceLine> voiceLines = lyric.getVoiceLines();
+        long start = System.nanoTime();
+        try {
+            return this.parse();
+        } finally {
+            LyricsMetrics.get().recordParse(System.nanoTime() - start);
+        }
+    }
 
-        while (this.scanner.hasNextLine()) {
-            String dataLine = this.scanner.nextLine();
+    private Lyrics parse() {
+        if (this.lyricsText != null) {
+            this.data = this.lyricsText.toCharArray();
+            this.length = this.data.length;
+        } else {
+            this.readFully();
+        }
+
+        char[] data = this.data;
+        int position = 0;
 
-            if (dataLine.contains("[") && dataLine.contains("]")) {
+        // Skip byte order mark
+        if (this.length > 0 && data[0] == '\uFEFF') {
+            position++;
+        }
 
-                // Find timecodes
-                Matcher matcher = TIME_PATTERN.matcher(dataLine);
+        while (position < this.length) {
+            // Find the end of the line
+            int end = position;
+            while (end < this.length && !isLineSeparator(data[end])) {
+                end++;
+            }
 
-                int timeCodeLength = 0;
-                List<Long> offsets = new ArrayList<>();
+            this.parseLine(position, end);
 
-                while (matcher.find()) {
-                    // Get timecode
-                    long minutes = Integer.parseInt(matcher.group(1));
-                    long seconds = Integer.parseInt(matcher.group(2));
+            // Skip the line separator, \r\n counts as one
+            position = end + 1;
+            if (end < this.length && data[end] == '\r' && position < this.length && data[position] == '\n') {
+                position++;
+            }
+        }
 
-                    String msString = matcher.group(3);
-                    long msPercentage = Integer.parseInt(msString);
+        // Wrong format?
+        if (this.count == 0) {
+            return null;
+        }
 
-                    // Convert ms percentage to milliseconds
-                    long milliseconds = 0;
-                    switch (msString.length()) {
-                        case 1:
-                            milliseconds = msPercentage * 100;
-                            break;
-                        case 2:
-                            milliseconds = msPercentage * 10;
-                            break;
-                        case 3:
-                            milliseconds = msPercentage;
-                            break;
-                    }
+        int[] indices = this.sortedIndices();
 
-                    // Convert timecode to timestamp
-                    long offset = milliseconds + seconds * 1000 + minutes * 1000 * 60;
+        // Workaround for start and end animation bug
+        int size = indices.length + 3;
+        long[] offsets = new long[size];
+        String[] contents = new String[size];
+        offsets[1] = this.offsets[indices[0]] / 2;
+        for (int i = 0; i < indices.length; i++) {
+            offsets[i + 2] = this.offsets[indices[i]];
+            contents[i + 2] = this.contents[indices[i]];
+        }
+        offsets[size - 1] = offsets[size - 2] + 1000;
+        contents[0] = contents[1] = contents[size - 1] = "";
 
-                    // Add timecode string length
-                    timeCodeLength += matcher.group(0).length();
+        return new Lyrics(offsets, contents);
+    }
 
-                    offsets.add(offset);
-                }
+    /**
+     * Parse the leading tags of a line and assign the remaining content to all of its timecodes
+     *
+     * @param start Index of the first character of the line
+     * @param end   Index after the last character of the line
+     */
+    private void parseLine(int start, int end) {
+        int firstTimecode = this.count;
+        int position = start;
+
+        // Read all tags at the start of the line
+        while (position < end && this.data[position] == '[') {
+            int next = this.parseTag(position + 1, end);
+            if (next < 0) {
+                break;
+            }
+            position = next;
+        }
+
+        // Lines without timecodes are metadata or plain text
+        if (this.count == firstTimecode) {
+            return;
+        }
+
+        String content = new String(this.data, position, end - position);
+        for (int i = firstTimecode; i < this.count; i++) {
+            this.contents[i] = content;
+        }
+    }
+
+    /**
+     * Parse a timecode or offset tag
+     *
+     * @param position Index after the opening bracket
+     * @param end      Index after the last character of the line
+     * @return Index after the closing bracket or -1 if it is not a supported tag
+     */
+    private int parseTag(int position, int end) {
+        char[] data = this.data;
+
+        // Minutes
+        int start = position;
+        long minutes = 0;
+        while (position < end && isDigit(data[position]) && minutes <= MAX_OFFSET) {
+            minutes = minutes * 10 + (data[position++] - '0');
+        }
+        if (position == start || position >= end || data[position] != ':') {
+            return this.parseOffsetTag(start, end);
+        }
+        position++;
+
+        // Seconds
+        start = position;
+        long seconds = 0;
+        while (position < end && isDigit(data[position]) && seconds <= MAX_OFFSET) {
+            seconds = seconds * 10 + (data[position++] - '0');
+        }
+        if (position == start || position >= end) {
+            return -1;
+        }
+
+        // Optional fraction, digits after the milliseconds are truncated
+        long milliseconds = 0;
+        if (data[position] == '.' || data[position] == ':') {
+            position++;
 
-                // Remove timecode of data line
-                String content = dataLine.substring(timeCodeLength);
-                for (Long offset : offsets) {
-                    // Create voiceline
-                    VoiceLine voiceLine = new VoiceLine(offset, content);
-                    voiceLines.add(voiceLine);
+            int digits = 0;
+            while (position < end && isDigit(data[position])) {
+                if (digits < 3) {
+                    milliseconds = milliseconds * 10 + (data[position] - '0');
                 }
+                digits++;
+                position++;
+            }
+
+            // Convert the fraction to milliseconds
+            for (int i = digits; i < 3; i++) {
+                milliseconds *= 10;
             }
         }
 
-        // Close scanner
-        this.scanner.close();
+        if (position >= end || data[position] != ']') {
+            return -1;
+        }
 
-        // Wrong format?
-        if (voiceLines.isEmpty()) {
-            return null;
+        // Convert timecode to timestamp
+        long offset = milliseconds + seconds * 1000 + minutes * 1000 * 60;
+        if (offset > MAX_OFFSET) {
+            return -1;
         }
 
-        // Sort offsets
-        voiceLines.sort(OFFSET_COMPARATOR);
+        this.add(offset);
+        return position + 1;
+    }
 
-        // Workaround for start and end animation bug
-        voiceLines.add(0, new VoiceLine(voiceLines.get(0).getOffset() / 2, ""));
-        voiceLines.add(0, new VoiceLine(0, ""));
-        voiceLines.add(new VoiceLine(voiceLines.get(voiceLines.size() - 1).getOffset() + 1000, ""));
+    /**
+     * Parse an [offset:+/-ms] tag
+     *
+     * @param position Index after the opening bracket
+     * @param end      Index after the last character of the line
+     * @return Index after the closing bracket or -1 if it is not an offset tag
+     */
+    private int parseOffsetTag(int position, int end) {
+        char[] data = this.data;
+        if (end - position < OFFSET_TAG.length) {
+            return -1;
+        }
+
+        for (char character : OFFSET_TAG) {
+            if (Character.toLowerCase(data[position++]) != character) {
+                return -1;
+            }
+        }
+
+        while (position < end && data[position] == ' ') {
+            position++;
+        }
+
+        boolean negative = false;
+        if (position < end && (data[position] == '+' || data[position] == '-')) {
+            negative = data[position++] == '-';
+        }
+
+        int start = position;
+        long value = 0;
+        while (position < end && isDigit(data[position]) && value <= MAX_OFFSET) {
+            value = value * 10 + (data[position++] - '0');
+        }
+
+        while (position < end && data[position] == ' ') {
+            position++;
+        }
+
+        if (position == start || position >= end || data[position] != ']') {
+            return -1;
+        }
+
+        this.offset = negative ? -value : value;
+        return position + 1;
+    }
+
+    private void add(long offset) {
+        if (this.count == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            this.contents = Arrays.copyOf(this.contents, this.count * 2);
+        }
+        this.offsets[this.count++] = offset;
+    }
+
+    /**
+     * Apply the offset header and sort the timecodes.
+     * Timecodes with the same offset keep the order of the file.
+     *
+     * @return Indices of the timecodes in playback order
+     */
+    private int[] sortedIndices() {
+        long[] keys = new long[this.count];
+        boolean sorted = true;
+
+        for (int i = 0; i < this.count; i++) {
+            // A positive offset shows the lyrics sooner
+            long offset = Math.min(Math.max(this.offsets[i] - this.offset, 0), MAX_OFFSET);
+            this.offsets[i] = offset;
+
+            // The index in the lower bits keeps the sort stable
+            keys[i] = offset << 31 | i;
+            sorted &= i == 0 || keys[i - 1] < keys[i];
+        }
+
+        if (!sorted) {
+            Arrays.sort(keys);
+        }
+
+        int[] indices = new int[this.count];
+        for (int i = 0; i < this.count; i++) {
+            indices[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return indices;
+    }
+
+    /**
+     * Read and close the input stream
+     */
+    private void readFully() {
+        this.data = new char[8192];
+        this.length = 0;
+
+        try (Reader reader = new InputStreamReader(this.inputStream, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(this.data, this.length, this.data.length - this.length)) != -1) {
+                this.length += read;
+                if (this.length == this.data.length) {
+                    this.data = Arrays.copyOf(this.data, this.data.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            // Parse everything that was read so far
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
 
-        return lyric;
+    private static boolean isLineSeparator(char character) {
+        return character == '\n' || character == '\r' || character == '\u2028' || character == '\u2029' || character == '\u0085';
     }
 }
@@ -0,0 +1,172 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time budget of a lyrics lookup.
+ * Every source and every HTTP request of a lookup only gets the remaining time of the budget.
+ * <p>
+ * Cancelling the deadline aborts all requests that are still running within it. Interrupting the thread
+ * of a request is not enough, because it doesn't abort blocking socket I/O.
+ *
+ * @author LabyStudio
+ */
+public class Deadline {
+
+    private final long budget;
+    private final long expiresAt;
+
+    /**
+     * The deadline this deadline was forked from (Can be null)
+     */
+    private final Deadline parent;
+
+    /**
+     * Actions that abort the requests that are currently running within this deadline
+     */
+    private final Set<Runnable> abortActions = ConcurrentHashMap.newKeySet();
+
+    private final Runnable cancelAction = this::cancel;
+
+    private volatile boolean cancelled;
+
+    private Deadline(long budget, long expiresAt, Deadline parent) {
+        this.budget = budget;
+        this.expiresAt = expiresAt;
+        this.parent = parent;
+    }
+
+    /**
+     * Create a deadline that expires after the given budget
+     *
+     * @param budget The budget in milliseconds
+     * @return The new deadline
+     */
+    public static Deadline after(long budget) {
+        return new Deadline(budget, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget), null);
+    }
+
+    /**
+     * Create a deadline that expires at the same time but can be cancelled on its own,
+     * e.g. to abort the requests that lost a race without cancelling the whole lookup
+     *
+     * @return The forked deadline, it is cancelled as well when this deadline is cancelled
+     */
+    public Deadline fork() {
+        Deadline fork = new Deadline(this.budget, this.expiresAt, this);
+        this.abortActions.add(fork.cancelAction);
+
+        // This deadline was cancelled while the fork was added
+        if (this.cancelled) {
+            fork.cancel();
+        }
+        return fork;
+    }
+
+    /**
+     * Remaining time of the budget
+     *
+     * @return Remaining time in milliseconds (0 if the deadline expired)
+     */
+    public long remaining() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.expiresAt - System.nanoTime()));
+    }
+
+    /**
+     * Check if the budget is used up
+     *
+     * @return The deadline expired
+     */
+    public boolean isExpired() {
+        return this.remaining() <= 0;
+    }
+
+    /**
+     * Get the remaining time as connect or read timeout of a connection
+     *
+     * @return Remaining time in milliseconds, at least 1 because 0 would disable the timeout
+     * @throws SocketTimeoutException If the deadline already expired
+     * @throws InterruptedIOException If the deadline was cancelled
+     */
+    public int timeout() throws InterruptedIOException {
+        this.check();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, this.remaining()));
+    }
+
+    /**
+     * Fail if the deadline expired or was cancelled
+     *
+     * @throws SocketTimeoutException If the deadline expired
+     * @throws InterruptedIOException If the deadline was cancelled
+     */
+    public void check() throws InterruptedIOException {
+        if (this.cancelled) {
+            throw new InterruptedIOException("Lyrics lookup was cancelled");
+        }
+        if (this.isExpired()) {
+            throw new SocketTimeoutException("Lyrics lookup budget of " + this.budget + "ms exceeded");
+        }
+    }
+
+    /**
+     * Cancel the lookup and abort all requests that are still running within this deadline
+     */
+    public void cancel() {
+        this.cancelled = true;
+
+        if (this.parent != null) {
+            this.parent.abortActions.remove(this.cancelAction);
+        }
+
+        for (Runnable action : this.abortActions) {
+            action.run();
+        }
+    }
+
+    /**
+     * Check if the lookup was cancelled
+     *
+     * @return The deadline was cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Register an action that aborts a running request when the deadline is cancelled
+     *
+     * @param abort Aborts the request, e.g. by closing its connection
+     * @throws InterruptedIOException If the deadline was already cancelled
+     */
+    public void register(Runnable abort) throws InterruptedIOException {
+        this.abortActions.add(abort);
+
+        // The deadline was cancelled while the action was added
+        if (this.cancelled) {
+            this.abortActions.remove(abort);
+            throw new InterruptedIOException("Lyrics lookup was cancelled");
+        }
+    }
+
+    /**
+     * Remove the abort action of a finished request
+     *
+     * @param abort The previously registered action
+     */
+    public void unregister(Runnable abort) {
+        this.abortActions.remove(abort);
+    }
+
+    /**
+     * The total budget of the lookup
+     *
+     * @return Budget in milliseconds
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+}
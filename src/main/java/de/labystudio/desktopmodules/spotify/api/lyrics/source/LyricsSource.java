@@ -2,15 +2,13 @@ package de.labystudio.desktopmodules.spotify.api.lyrics.source;
 
 import com.google.gson.Gson;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.http.HttpTransport;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.http.ResponseHandler;
 import de.labystudio.spotifyapi.model.Track;
 
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Lyrics database source object
@@ -21,14 +19,38 @@ public abstract class LyricsSource {
 
     protected final Gson GSON = new Gson();
 
+    /**
+     * Statistics and circuit breaker of this source
+     */
+    private final SourceHealth health = new SourceHealth();
+
     /**
      * Get the lyrics from the given track
      *
-     * @param track The Spotify track
+     * @param track    The Spotify track
+     * @param deadline The remaining time budget of the lookup
      * @return The lyrics (Can be null if there is no result)
      * @throws Exception Request exception
      */
-    public abstract Lyrics get(Track track) throws Exception;
+    public abstract Lyrics get(Track track, Deadline deadline) throws Exception;
+
+    /**
+     * Name of the source
+     *
+     * @return The display name of the source
+     */
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Statistics and circuit breaker of this source
+     *
+     * @return The health of this source
+     */
+    public SourceHealth getHealth() {
+        return this.health;
+    }
 
     /**
      * API referer value
@@ -45,49 +67,68 @@ public abstract class LyricsSource {
     protected abstract String getUserAgent();
 
     /**
-     * Send a request to the given remote URL
+     * URL of the server to open a connection to when the addon starts
+     *
+     * @return The URL or null if the source doesn't need a connection
+     */
+    public String getWarmUpUrl() {
+        return null;
+    }
+
+    /**
+     * Default request headers of this source
+     *
+     * @return The User-Agent and Referer headers
+     */
+    protected Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("User-Agent", getUserAgent());
+        headers.put("Referer", getReferer());
+        return headers;
+    }
+
+    /**
+     * Send a request to the given remote URL.
+     * Requests without a payload are sent as GET, requests with a payload as POST.
      *
      * @param urlFormat URL to request containing variables (like %s)
      * @param query     Query to fill the variables with
      * @param payload   Payload in bytes (Can be null to send it without a payload)
+     * @param deadline  The remaining time budget is used as connect and read timeout
      * @return The response as a string
      * @throws Exception Request exception
      */
-    protected String request(String urlFormat, String query, byte[] payload) throws Exception {
-        // Create URL
+    protected String request(String urlFormat, String query, byte[] payload, Deadline deadline) throws Exception {
         String url = String.format(urlFormat, URLEncoder.encode(query, "UTF-8"));
+        return HttpTransport.get().requestString(payload == null ? "GET" : "POST", url, getHeaders(), payload, deadline);
+    }
 
-        // Open connection
-        HttpURLConnection httpURLConnection = (HttpURLConnection) new URL(url).openConnection();
-        httpURLConnection.setRequestProperty("User-Agent", getUserAgent());
-        httpURLConnection.setRequestProperty("Referer", getReferer());
-        httpURLConnection.setRequestMethod("POST");
-
-        // Add payload
-        if (payload != null) {
-            httpURLConnection.setDoOutput(true);
-            OutputStream out = httpURLConnection.getOutputStream();
-            out.write(payload);
-        }
-
-        // Check response code
-        int responseCode = httpURLConnection.getResponseCode();
-        if (responseCode / 100 != 2) {
-            throw new Exception("Response code: " + responseCode);
-        }
-
-        // Get input stream
-        InputStream in = httpURLConnection.getInputStream();
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        // Read bytes
-        byte[] data = new byte[1024];
-        int count;
-        while ((count = in.read(data, 0, 1024)) != -1) {
-            baos.write(data, 0, count);
-        }
+    /**
+     * Send a GET request to the given remote URL and read the response while it is being received
+     *
+     * @param urlFormat URL to request containing variables (like %s)
+     * @param query     Query to fill the variables with
+     * @param deadline  The remaining time budget is used as connect and read timeout
+     * @param handler   Reads the response body
+     * @param <T>       The type of the result
+     * @return The result of the handler
+     * @throws Exception Request exception
+     */
+    protected <T> T request(String urlFormat, String query, Deadline deadline, ResponseHandler<T> handler) throws Exception {
+        String url = String.format(urlFormat, URLEncoder.encode(query, "UTF-8"));
+        return HttpTransport.get().get(url, getHeaders(), deadline, handler);
+    }
 
-        // To string
-        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    /**
+     * Send a request to the given remote URL and get the raw response
+     *
+     * @param url      URL to request
+     * @param payload  Payload in bytes (Can be null to send it without a payload)
+     * @param deadline The remaining time budget is used as connect and read timeout
+     * @return The response in bytes
+     * @throws Exception Request exception
+     */
+    protected byte[] requestBytes(String url, byte[] payload, Deadline deadline) throws Exception {
+        return HttpTransport.get().requestBytes(payload == null ? "GET" : "POST", url, getHeaders(), payload, deadline);
     }
 }
@@ -0,0 +1,265 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.metrics.LatencyHistogram;
+
+/**
+ * Tracks the success rate, hit rate and latency of a lyrics source
+ * and protects it with a circuit breaker.
+ * <p>
+ * The circuit opens after several consecutive failures and the source is skipped until the cooldown expired.
+ * After the cooldown a single probe request is allowed (half-open state). A successful probe closes the
+ * circuit again, a failed probe doubles the cooldown. The probe is only claimed by {@link #allowRequest()}
+ * right before the request is sent, a probe that is cancelled gives its slot back with {@link #releaseProbe()}.
+ *
+ * @author LabyStudio
+ */
+public class SourceHealth {
+
+    /**
+     * Amount of consecutive failures that open the circuit
+     */
+    private static final int FAILURE_THRESHOLD = 3;
+
+    private static final long MIN_COOLDOWN = 30 * 1000L;
+    private static final long MAX_COOLDOWN = 10 * 60 * 1000L;
+
+    /**
+     * Time after which a probe request that never reported back doesn't block new probes anymore
+     */
+    private static final long PROBE_TIMEOUT = 30 * 1000L;
+
+    /**
+     * Weight of the latest sample in the moving averages
+     */
+    private static final double ALPHA = 0.2;
+
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long cooldown = MIN_COOLDOWN;
+    private long openedAt;
+    private boolean probing;
+    private long probeStartedAt;
+
+    // Exponentially weighted moving averages, initialized with neutral priors
+    private double successRate = 1.0;
+    private double hitRate = 0.5;
+    private double latency = 1000; // Milliseconds
+
+    private long requests;
+    private long hits;
+    private long misses;
+    private long errors;
+    private long deadlineExceeded;
+
+    /**
+     * Check if the source would accept a request right now without changing the state of the circuit
+     *
+     * @return The source can be requested
+     */
+    public synchronized boolean isAvailable() {
+        long now = System.currentTimeMillis();
+
+        switch (this.state) {
+            case OPEN:
+                return now - this.openedAt >= this.cooldown;
+            case HALF_OPEN:
+                return !this.probing || now - this.probeStartedAt >= PROBE_TIMEOUT;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Claim a request to the source right before it is sent.
+     * In half-open state only a single probe request is allowed.
+     *
+     * @return The request can be sent
+     */
+    public synchronized boolean allowRequest() {
+        if (!this.isAvailable()) {
+            return false;
+        }
+
+        // Cooldown expired or the previous probe never reported back, let a probe request through
+        if (this.state != State.CLOSED) {
+            this.state = State.HALF_OPEN;
+            this.probing = true;
+            this.probeStartedAt = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    /**
+     * Give the probe slot back if the claimed request was cancelled before it reported back
+     */
+    public synchronized void releaseProbe() {
+        this.probing = false;
+    }
+
+    /**
+     * Record a successful request
+     *
+     * @param nanos The duration of the request in nanoseconds
+     * @param hit   The source found lyrics for the track
+     */
+    public synchronized void recordSuccess(long nanos, boolean hit) {
+        this.latencyHistogram.record(nanos);
+        this.requests++;
+        if (hit) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+
+        this.successRate = average(this.successRate, 1);
+        this.hitRate = average(this.hitRate, hit ? 1 : 0);
+        this.latency = average(this.latency, toMillis(nanos));
+
+        // Close the circuit again
+        this.probing = false;
+        this.consecutiveFailures = 0;
+        this.cooldown = MIN_COOLDOWN;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * Record a failed request
+     *
+     * @param nanos The duration of the request in nanoseconds
+     * @return The circuit was opened by this failure
+     */
+    public synchronized boolean recordFailure(long nanos) {
+        this.latencyHistogram.record(nanos);
+        this.requests++;
+        this.errors++;
+
+        this.successRate = average(this.successRate, 0);
+        this.latency = average(this.latency, toMillis(nanos));
+        this.consecutiveFailures++;
+
+        // The probe failed, wait longer for the next one
+        if (this.state == State.HALF_OPEN) {
+            this.cooldown = Math.min(this.cooldown * 2, MAX_COOLDOWN);
+            this.open();
+            return true;
+        }
+
+        if (this.state == State.CLOSED && this.consecutiveFailures >= FAILURE_THRESHOLD) {
+            this.open();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Record a request that was cut off because the time budget of the whole lookup ran out.
+     * This is not a failure of the source, it might just have been requested late after a hedge delay
+     * or behind slower sources. The duration only raises the latency estimate of the source.
+     *
+     * @param nanos The duration of the request in nanoseconds until it was cut off
+     */
+    public synchronized void recordDeadlineExceeded(long nanos) {
+        this.deadlineExceeded++;
+        this.latency = Math.max(this.latency, average(this.latency, toMillis(nanos)));
+
+        // A probe without an answer says nothing about the source
+        this.probing = false;
+    }
+
+    /**
+     * Estimated time in milliseconds until this source delivers lyrics.
+     * Sources with a lower score are queried first.
+     *
+     * @return The expected latency divided by the probability of a result
+     */
+    public synchronized double getScore() {
+        double probability = Math.max(this.successRate * this.hitRate, 0.05);
+        return this.latency / probability;
+    }
+
+    private void open() {
+        this.probing = false;
+        this.state = State.OPEN;
+        this.openedAt = System.currentTimeMillis();
+    }
+
+    private static double average(double average, double sample) {
+        return average + ALPHA * (sample - average);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return this.latencyHistogram;
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    public synchronized long getCooldown() {
+        return this.cooldown;
+    }
+
+    public synchronized double getSuccessRate() {
+        return this.successRate;
+    }
+
+    public synchronized double getHitRate() {
+        return this.hitRate;
+    }
+
+    /**
+     * Moving average of the request duration
+     *
+     * @return Latency in milliseconds
+     */
+    public synchronized double getLatency() {
+        return this.latency;
+    }
+
+    public synchronized long getRequests() {
+        return this.requests;
+    }
+
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    public synchronized long getErrors() {
+        return this.errors;
+    }
+
+    public synchronized long getDeadlineExceeded() {
+        return this.deadlineExceeded;
+    }
+
+    /**
+     * State of the circuit breaker
+     */
+    public enum State {
+        /**
+         * The source is healthy and all requests are allowed
+         */
+        CLOSED,
+
+        /**
+         * The source failed repeatedly and is skipped
+         */
+        OPEN,
+
+        /**
+         * The cooldown expired and a single probe request is allowed
+         */
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,167 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.crintsoft;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte level codec of the crintsoft search protocol.
+ * Works directly on the raw request and response buffers without boxing or intermediate strings.
+ *
+ * @author LabyStudio
+ */
+public class CrintSoftCodec {
+
+    /**
+     * Length of the response header, the encrypted payload starts after it
+     */
+    public static final int HEADER_LENGTH = 22;
+
+    private static final byte[] MAGIC_KEY = "Mlv1clt4.0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MAGIC_START_KEY = "server_url".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_ARTIST = "artist".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_TITLE = "title".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LRC_EXTENSION = ".lrc".getBytes(StandardCharsets.US_ASCII);
+
+    private CrintSoftCodec() {
+    }
+
+    /**
+     * Encrypt the search query and add the header with the MD5 hash of the query
+     *
+     * @param query The XML search query in bytes
+     * @return The encoded request payload
+     * @throws NoSuchAlgorithmException If MD5 is not available
+     */
+    public static byte[] encodeQuery(byte[] query) throws NoSuchAlgorithmException {
+        // MD5 of the query and the magic key, probably used in a search cache
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        digest.update(query);
+        digest.update(MAGIC_KEY);
+        byte[] hash = digest.digest();
+
+        // The encryption key is the average of all query bytes
+        int sum = 0;
+        for (byte b : query) {
+            sum += b;
+        }
+        byte key = (byte) (query.length == 0 ? 0 : sum / query.length);
+
+        byte[] result = new byte[6 + hash.length + query.length];
+
+        // Header
+        result[0] = 0x02;
+        result[1] = key;
+        result[2] = 0x04;
+
+        System.arraycopy(hash, 0, result, 6, hash.length);
+
+        // Encrypted query
+        int offset = 6 + hash.length;
+        for (int i = 0; i < query.length; i++) {
+            result[offset + i] = (byte) (query[i] ^ key);
+        }
+
+        return result;
+    }
+
+    /**
+     * Decrypt the payload of a search response in place
+     *
+     * @param response The raw response, the bytes after the header are replaced with the decrypted payload
+     */
+    public static void decrypt(byte[] response) {
+        if (response.length < HEADER_LENGTH) {
+            return;
+        }
+
+        byte key = response[1];
+        for (int i = HEADER_LENGTH; i < response.length; i++) {
+            response[i] ^= key;
+        }
+    }
+
+    /**
+     * Read the track list of a decrypted search response.
+     * The payload consists of null delimited key and value records, only the url, artist and title are decoded.
+     *
+     * @param response  The decrypted response
+     * @param urlPrefix Prefix of the lyrics file paths
+     * @return All tracks of the response
+     */
+    public static List<CrintSoftTrack> decodeTracks(byte[] response, String urlPrefix) {
+        List<CrintSoftTrack> tracks = new ArrayList<>();
+
+        // Find the magic key to start reading
+        int start = indexOf(response, MAGIC_START_KEY, Math.min(HEADER_LENGTH, response.length), response.length);
+        if (start == -1) {
+            return tracks;
+        }
+
+        CrintSoftTrack currentTrack = null;
+        int valueIndex = 0;
+
+        int recordStart = start + MAGIC_START_KEY.length;
+        for (int i = recordStart; i < response.length; i++) {
+            if (response[i] != 0) {
+                continue;
+            }
+
+            int length = i - recordStart;
+
+            if (indexOf(response, '/', recordStart, i) != -1 && indexOf(response, LRC_EXTENSION, recordStart, i) != -1) {
+                // The path of a lyrics file starts a new track
+                currentTrack = new CrintSoftTrack(urlPrefix + decode(response, recordStart, length));
+                tracks.add(currentTrack);
+                valueIndex = 0;
+            } else if (currentTrack != null && valueIndex == 0 && !equals(response, recordStart, length, KEY_ARTIST)) {
+                currentTrack.setArtist(decode(response, recordStart, length));
+                valueIndex++;
+            } else if (currentTrack != null && valueIndex == 1 && !equals(response, recordStart, length, KEY_TITLE)) {
+                currentTrack.setName(decode(response, recordStart, length));
+                valueIndex++;
+            }
+
+            recordStart = i + 1;
+        }
+
+        return tracks;
+    }
+
+    private static String decode(byte[] data, int offset, int length) {
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean equals(byte[] data, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, char value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        for (int i = from; i <= last; i++) {
+            if (equals(data, i, pattern.length, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,67 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.http;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of reusable byte buffers to read response bodies without allocating a new buffer for every request
+ *
+ * @author LabyStudio
+ */
+public class BufferPool {
+
+    /**
+     * Buffers that were grown beyond this size are not kept
+     */
+    private static final int MAX_POOLED_SIZE = 1024 * 1024;
+
+    private final int bufferSize;
+    private final int maxPooled;
+
+    private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Create a buffer pool
+     *
+     * @param bufferSize The size of each buffer in bytes
+     * @param maxPooled  The maximum amount of idle buffers that are kept
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Take a buffer from the pool or allocate a new one if the pool is empty
+     *
+     * @return A buffer of at least the buffer size
+     */
+    public byte[] acquire() {
+        byte[] buffer = this.buffers.poll();
+        if (buffer == null) {
+            return new byte[this.bufferSize];
+        }
+
+        this.pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool.
+     * Buffers that were grown beyond the buffer size are pooled as well, up to a size of one megabyte.
+     *
+     * @param buffer The buffer that is no longer used
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length < this.bufferSize || buffer.length > MAX_POOLED_SIZE) {
+            return;
+        }
+
+        if (this.pooled.incrementAndGet() <= this.maxPooled) {
+            this.buffers.offer(buffer);
+        } else {
+            this.pooled.decrementAndGet();
+        }
+    }
+}
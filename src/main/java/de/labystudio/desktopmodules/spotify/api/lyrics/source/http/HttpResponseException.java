@@ -0,0 +1,27 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.http;
+
+import java.io.IOException;
+
+/**
+ * The server answered with a response code that is not successful
+ *
+ * @author LabyStudio
+ */
+public class HttpResponseException extends IOException {
+
+    private final int responseCode;
+
+    public HttpResponseException(int responseCode) {
+        super("Response code: " + responseCode);
+        this.responseCode = responseCode;
+    }
+
+    /**
+     * The HTTP response code of the server
+     *
+     * @return The response code
+     */
+    public int getResponseCode() {
+        return this.responseCode;
+    }
+}
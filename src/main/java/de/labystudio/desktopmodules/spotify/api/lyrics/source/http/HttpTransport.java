@@ -0,0 +1,304 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.http;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.Deadline;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP transport of all lyrics sources.
+ * <p>
+ * Response bodies are always read completely and closed, so the JDK can keep the connection alive and reuse
+ * it for the next request to the same host. Responses are requested gzip compressed and read into pooled buffers.
+ * <p>
+ * The keep-alive cache is global to the JVM and shared with the host application, so the transport doesn't
+ * change its limits. The JDK keeps up to 5 idle connections per host by default ({@code http.maxConnections}),
+ * which covers the few parallel requests per source of a lookup.
+ * <p>
+ * The read timeout of a connection only limits a single read. To keep a slowly streamed response within its
+ * deadline, the deadline is checked again before every read of the response body.
+ *
+ * @author LabyStudio
+ */
+public class HttpTransport {
+
+    private static final HttpTransport INSTANCE = new HttpTransport();
+
+    /**
+     * Maximum amount of bytes that are skipped to return a connection to the keep-alive cache
+     */
+    private static final int MAX_DRAIN = 64 * 1024;
+
+    private final BufferPool bufferPool = new BufferPool(16 * 1024, 8);
+
+    /**
+     * Closes the connections of cancelled requests, closing a connection can block until a pending read returns
+     */
+    private final Executor abortExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Lyrics Request Abort");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lyrics Connection Warm-Up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HttpTransport() {
+    }
+
+    /**
+     * Get the transport that is shared by all lyrics sources
+     *
+     * @return The shared transport
+     */
+    public static HttpTransport get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Send a request and read the response body with the given handler
+     *
+     * @param method   The HTTP method
+     * @param url      The URL to request
+     * @param headers  Additional request headers
+     * @param payload  The request body (Can be null to send it without a body)
+     * @param deadline The remaining time budget is used as connect and read timeout
+     * @param handler  Reads the response body
+     * @param <T>      The type of the result
+     * @return The result of the handler
+     * @throws IOException If the request fails or the response code is not successful
+     */
+    public <T> T execute(String method, String url, Map<String, String> headers, byte[] payload,
+                         Deadline deadline, ResponseHandler<T> handler) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+        // Close the connection if the lookup is cancelled while the request is blocked in I/O
+        Runnable abort = () -> this.abortExecutor.execute(connection::disconnect);
+        deadline.register(abort);
+        try {
+            return this.execute(connection, method, headers, payload, deadline, handler);
+        } finally {
+            deadline.unregister(abort);
+        }
+    }
+
+    private <T> T execute(HttpURLConnection connection, String method, Map<String, String> headers, byte[] payload,
+                          Deadline deadline, ResponseHandler<T> handler) throws IOException {
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(deadline.timeout());
+        connection.setReadTimeout(deadline.timeout());
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        // Add payload
+        if (payload != null) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(payload.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(payload);
+            }
+        }
+
+        // Check response code
+        int responseCode = connection.getResponseCode();
+        if (responseCode / 100 != 2) {
+            // Consume the error body to keep the connection alive
+            this.discard(connection.getErrorStream());
+            throw new HttpResponseException(responseCode);
+        }
+
+        InputStream in = new DeadlineInputStream(connection.getInputStream(), deadline);
+        InputStream body = in;
+        try {
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                body = new GZIPInputStream(in);
+            }
+            return handler.handle(body);
+        } finally {
+            this.discard(in);
+
+            // Release the inflater of the compressed stream
+            if (body != in) {
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * Send a GET request and read the response body with the given handler
+     *
+     * @param url      The URL to request
+     * @param headers  Additional request headers
+     * @param deadline The remaining time budget is used as connect and read timeout
+     * @param handler  Reads the response body
+     * @param <T>      The type of the result
+     * @return The result of the handler
+     * @throws IOException If the request fails or the response code is not successful
+     */
+    public <T> T get(String url, Map<String, String> headers, Deadline deadline, ResponseHandler<T> handler) throws IOException {
+        return this.execute("GET", url, headers, null, deadline, handler);
+    }
+
+    /**
+     * Send a request and read the raw response body
+     *
+     * @param method   The HTTP method
+     * @param url      The URL to request
+     * @param headers  Additional request headers
+     * @param payload  The request body (Can be null to send it without a body)
+     * @param deadline The remaining time budget is used as connect and read timeout
+     * @return The response body
+     * @throws IOException If the request fails or the response code is not successful
+     */
+    public byte[] requestBytes(String method, String url, Map<String, String> headers, byte[] payload, Deadline deadline) throws IOException {
+        return this.execute(method, url, headers, payload, deadline,
+                in -> this.readBody(in, (data, length) -> Arrays.copyOf(data, length)));
+    }
+
+    /**
+     * Send a request and decode the response body as UTF-8 string
+     *
+     * @param method   The HTTP method
+     * @param url      The URL to request
+     * @param headers  Additional request headers
+     * @param payload  The request body (Can be null to send it without a body)
+     * @param deadline The remaining time budget is used as connect and read timeout
+     * @return The response body as string
+     * @throws IOException If the request fails or the response code is not successful
+     */
+    public String requestString(String method, String url, Map<String, String> headers, byte[] payload, Deadline deadline) throws IOException {
+        // Decode straight out of the pooled buffer
+        return this.execute(method, url, headers, payload, deadline,
+                in -> this.readBody(in, (data, length) -> new String(data, 0, length, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Open connections to the given URLs in the background,
+     * so the DNS lookup and TLS handshake are already done when the first lyrics are requested.
+     *
+     * @param urls The URLs to connect to
+     */
+    public void warmUp(Iterable<String> urls) {
+        for (String url : urls) {
+            this.warmUpExecutor.execute(() -> {
+                try {
+                    this.execute("HEAD", url, Collections.emptyMap(), null, Deadline.after(5000), in -> null);
+                } catch (IOException e) {
+                    // Any response is fine, the connection is established either way
+                }
+            });
+        }
+    }
+
+    /**
+     * Read the entire stream into a pooled buffer and decode it
+     *
+     * @param in      The stream to read
+     * @param decoder Converts the buffer content into the result
+     * @param <T>     The type of the result
+     * @return The decoded result
+     */
+    private <T> T readBody(InputStream in, BodyDecoder<T> decoder) throws IOException {
+        byte[] buffer = this.bufferPool.acquire();
+        int length = 0;
+        int count;
+
+        try {
+            while ((count = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += count;
+
+                // Grow the buffer if it is full, the larger buffer goes back into the pool
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+
+            return decoder.decode(buffer, length);
+        } finally {
+            this.bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Skip the rest of the stream and close it, so the connection can be reused
+     *
+     * @param in The stream to discard (Can be null)
+     */
+    private void discard(InputStream in) {
+        if (in == null) {
+            return;
+        }
+
+        byte[] buffer = this.bufferPool.acquire();
+        try {
+            int skipped = 0;
+            int count;
+            while (skipped < MAX_DRAIN && (count = in.read(buffer)) != -1) {
+                skipped += count;
+            }
+        } catch (IOException ignored) {
+            // The connection won't be reused
+        } finally {
+            this.bufferPool.release(buffer);
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Response stream that fails as soon as the deadline of the request expired
+     */
+    private static class DeadlineInputStream extends FilterInputStream {
+
+        private final Deadline deadline;
+
+        private DeadlineInputStream(InputStream in, Deadline deadline) {
+            super(in);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.deadline.check();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            this.deadline.check();
+            return super.read(buffer, offset, length);
+        }
+
+        @Override
+        public long skip(long amount) throws IOException {
+            this.deadline.check();
+            return super.skip(amount);
+        }
+    }
+
+    /**
+     * Converts the content of a read buffer into a result
+     */
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(byte[] data, int length);
+    }
+}
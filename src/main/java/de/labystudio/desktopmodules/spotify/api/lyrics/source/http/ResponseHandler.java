@@ -0,0 +1,24 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the body of a successful HTTP response
+ *
+ * @param <T> The type of the result
+ * @author LabyStudio
+ */
+@FunctionalInterface
+public interface ResponseHandler<T> {
+
+    /**
+     * Read the response body.
+     * The stream is already decompressed and will be drained and closed by the transport afterwards.
+     *
+     * @param in The response body
+     * @return The result of the response
+     * @throws IOException If the body can't be read
+     */
+    T handle(InputStream in) throws IOException;
+}
@@ -0,0 +1,478 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.local;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.match.TrackKey;
+import de.labystudio.desktopmodules.spotify.api.lyrics.match.TrackMatcher;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.Deadline;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Lyrics source of the LRC files in a local directory.
+ * <p>
+ * All files are indexed by the normalized title of their header tags or file names when the library is loaded.
+ * Changes in the directory are picked up by a watch service, so the index stays up to date without rescanning.
+ * A lookup only reads the file of the best matching index entry and doesn't need any network access.
+ * {@link #find(Track)} only searches the index, so it can be used to check for a file without reading it.
+ *
+ * @author LabyStudio
+ */
+public class LocalLibrarySource extends LyricsSource implements Closeable {
+
+    private static final String EXTENSION = ".lrc";
+
+    /**
+     * Maximum amount of lines that are read to find the header tags
+     */
+    private static final int MAX_HEADER_LINES = 32;
+
+    /**
+     * Track number in front of the title in a file name
+     */
+    private static final Pattern TRACK_NUMBER = Pattern.compile("^\\d{1,3}(?:\\s*[.\\-_]\\s*|\\s+)");
+
+    private final Path directory;
+
+    /**
+     * All indexed files and their entries grouped by the normalized core title
+     */
+    private final Map<Path, Entry> files = new ConcurrentHashMap<>();
+    private final Map<String, Set<Entry>> titles = new ConcurrentHashMap<>();
+
+    /**
+     * Watched directories of the library
+     */
+    private final Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
+
+    private volatile WatchService watchService;
+    private volatile boolean closed;
+
+    /**
+     * Create the source for the given directory, the index is built by {@link #load()}
+     *
+     * @param directory The directory that contains the LRC files
+     */
+    public LocalLibrarySource(File directory) {
+        this.directory = directory.toPath();
+    }
+
+    /**
+     * Index all files of the directory and start watching it for changes.
+     * The files are read in parallel.
+     */
+    public void load() {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            this.watchService = this.directory.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // The source was closed before the watch service was assigned
+        if (this.closed) {
+            this.closeWatchService();
+            return;
+        }
+
+        this.scan(this.directory);
+
+        // Keep the index up to date
+        if (this.watchService != null && !this.closed) {
+            Thread thread = new Thread(this::watch, "Lyrics Library Watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public Lyrics get(Track track, Deadline deadline) throws Exception {
+        Path path = this.find(track);
+        if (path == null) {
+            return null;
+        }
+
+        try (InputStream in = Files.newInputStream(path)) {
+            return new LyricsReader(in).readLyrics();
+        }
+    }
+
+    /**
+     * Find the file that matches the given track best without reading it
+     *
+     * @param track The track to find the lyrics file of
+     * @return The path of the file or null if there is no matching file in the index
+     */
+    public Path find(Track track) {
+        TrackMatcher matcher = TrackMatcher.of(track);
+        Set<Entry> candidates = this.titles.get(matcher.getKey().getCoreTitle());
+        if (candidates == null) {
+            return null;
+        }
+
+        // Find the file that matches the requested track best
+        Entry best = null;
+        double bestScore = TrackMatcher.MIN_SCORE;
+        for (Entry candidate : candidates) {
+            double score = matcher.score(candidate.key);
+            if (score >= bestScore && (best == null || score > bestScore)) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+
+        return best == null ? null : best.path;
+    }
+
+    /**
+     * Stop watching the directory
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.closeWatchService();
+    }
+
+    private void closeWatchService() {
+        try {
+            WatchService watchService = this.watchService;
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Index all files in the given directory and register all sub directories at the watch service
+     *
+     * @param directory The directory to scan
+     */
+    private void scan(Path directory) {
+        List<Path> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (isLyricsFile(file)) {
+                        files.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // Skip entries that can't be read instead of aborting the whole scan
+                    System.err.println("Could not scan " + file + ": " + e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Read the headers of all files in parallel
+        files.parallelStream().forEach(this::index);
+    }
+
+    /**
+     * Process the events of the watch service until the source is closed
+     */
+    private void watch() {
+        try {
+            while (!this.closed) {
+                WatchKey key = this.watchService.take();
+                Path directory = this.watchKeys.get(key);
+
+                // Drop the remaining events of a removed directory
+                if (directory == null && !key.isValid()) {
+                    key.pollEvents();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Events were lost, index the whole library again
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                        this.prune();
+                        this.scan(this.directory);
+                        continue;
+                    }
+
+                    Path path = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        this.removeAll(path);
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        // A directory was created or moved into the library
+                        this.scan(path);
+                    } else if (isLyricsFile(path)) {
+                        this.index(path);
+                    }
+                }
+
+                // The directory was deleted
+                if (!key.reset()) {
+                    this.watchKeys.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The source was closed
+        }
+    }
+
+    private void register(Path directory) {
+        if (this.watchService == null || this.watchKeys.containsValue(directory)) {
+            return;
+        }
+
+        try {
+            WatchKey key = directory.register(this.watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            this.watchKeys.put(key, directory);
+        } catch (ClosedWatchServiceException e) {
+            // The source was closed
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read the header of a file and add it to the index
+     *
+     * @param path The path of the LRC file
+     */
+    private void index(Path path) {
+        Entry entry;
+        try {
+            entry = readEntry(path);
+        } catch (IOException e) {
+            // The file was deleted or is still being written
+            this.remove(path);
+            return;
+        }
+
+        this.add(entry);
+    }
+
+    private synchronized void add(Entry entry) {
+        this.remove(entry.path);
+        this.files.put(entry.path, entry);
+        this.titles.computeIfAbsent(entry.key.getCoreTitle(), title -> ConcurrentHashMap.newKeySet()).add(entry);
+    }
+
+    private synchronized void remove(Path path) {
+        Entry entry = this.files.remove(path);
+        if (entry == null) {
+            return;
+        }
+
+        Set<Entry> entries = this.titles.get(entry.key.getCoreTitle());
+        if (entries != null) {
+            entries.remove(entry);
+        }
+    }
+
+    /**
+     * Remove a file or all files of a deleted directory from the index
+     *
+     * @param path The deleted path
+     */
+    private void removeAll(Path path) {
+        for (Path file : this.files.keySet()) {
+            if (file.startsWith(path)) {
+                this.remove(file);
+            }
+        }
+
+        // Stop watching the deleted directories
+        this.watchKeys.entrySet().removeIf(entry -> {
+            if (!entry.getValue().startsWith(path)) {
+                return false;
+            }
+            entry.getKey().cancel();
+            return true;
+        });
+    }
+
+    /**
+     * Remove all files from the index that don't exist anymore
+     */
+    private void prune() {
+        for (Path file : this.files.keySet()) {
+            if (!Files.exists(file)) {
+                this.remove(file);
+            }
+        }
+    }
+
+    /**
+     * Read the title, artist and length tags of the file.
+     * Missing tags are taken from the file name ("Artist - Title.lrc") and the name of the parent directory.
+     *
+     * @param path The path of the LRC file
+     * @return The index entry of the file
+     * @throws IOException If the file can't be read
+     */
+    private Entry readEntry(Path path) throws IOException {
+        String title = null;
+        String artist = null;
+        long length = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            for (int i = 0; i < MAX_HEADER_LINES && (line = reader.readLine()) != null; i++) {
+                line = line.replace("\uFEFF", "").trim();
+
+                int colon = line.indexOf(':');
+                if (!line.startsWith("[") || !line.endsWith("]") || colon < 2) {
+                    continue;
+                }
+
+                // The header ends at the first voice line
+                String tag = line.substring(1, colon).trim().toLowerCase(Locale.ROOT);
+                if (tag.isEmpty() || Character.isDigit(tag.charAt(0))) {
+                    break;
+                }
+
+                String value = line.substring(colon + 1, line.length() - 1).trim();
+                switch (tag) {
+                    case "ti":
+                        title = value;
+                        break;
+                    case "ar":
+                        artist = value;
+                        break;
+                    case "length":
+                        length = parseLength(value);
+                        break;
+                }
+            }
+        } catch (MalformedInputException e) {
+            // Not UTF-8, use the file name only
+        }
+
+        // Use the file name for the missing tags
+        if (title == null || title.isEmpty() || artist == null || artist.isEmpty()) {
+            String name = path.getFileName().toString();
+            name = TRACK_NUMBER.matcher(name.substring(0, name.length() - EXTENSION.length())).replaceFirst("");
+
+            int separator = name.indexOf(" - ");
+            String fileArtist = separator == -1 ? null : name.substring(0, separator);
+            String fileTitle = separator == -1 ? name : name.substring(separator + 3);
+
+            // Fall back to the directory name as artist
+            Path parent = path.getParent();
+            if (fileArtist == null && parent != null && !parent.equals(this.directory)) {
+                fileArtist = parent.getFileName().toString();
+            }
+
+            if (title == null || title.isEmpty()) {
+                title = fileTitle;
+            }
+            if (artist == null || artist.isEmpty()) {
+                artist = fileArtist;
+            }
+        }
+
+        return new Entry(path, TrackKey.of(title, artist, length));
+    }
+
+    /**
+     * Parse the value of a length tag
+     *
+     * @param value The length in the format mm:ss or in seconds
+     * @return The length in milliseconds or 0 if the format is invalid
+     */
+    private static long parseLength(String value) {
+        try {
+            int colon = value.indexOf(':');
+            if (colon == -1) {
+                return (long) (Double.parseDouble(value) * 1000);
+            }
+            long minutes = Long.parseLong(value.substring(0, colon).trim());
+            double seconds = Double.parseDouble(value.substring(colon + 1).trim());
+            return minutes * 60000 + (long) (seconds * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isLyricsFile(Path path) {
+        return path.getFileName() != null
+                && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION)
+                && Files.isRegularFile(path);
+    }
+
+    /**
+     * Amount of indexed files
+     *
+     * @return Size of the index
+     */
+    public int size() {
+        return this.files.size();
+    }
+
+    public File getDirectory() {
+        return this.directory.toFile();
+    }
+
+    @Override
+    protected String getReferer() {
+        return null;
+    }
+
+    @Override
+    protected String getUserAgent() {
+        return null;
+    }
+
+    /**
+     * An indexed LRC file
+     */
+    private static class Entry {
+
+        private final Path path;
+        private final TrackKey key;
+
+        private Entry(Path path, TrackKey key) {
+            this.path = path;
+            this.key = key;
+        }
+    }
+}
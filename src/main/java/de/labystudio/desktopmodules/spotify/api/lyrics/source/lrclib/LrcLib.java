@@ -1,13 +1,21 @@
 package de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.Scanner;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import de.labystudio.desktopmodules.spotify.api.lyrics.match.TrackMatcher;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.Deadline;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.http.HttpResponseException;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.http.HttpTransport;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.Song;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model.SongReader;
 import de.labystudio.spotifyapi.model.Track;
 
 /**
@@ -19,53 +27,92 @@ import de.labystudio.spotifyapi.model.Track;
 public class LrcLib extends LyricsSource {
 
     private static final String API_ROOT = "https://lrclib.net/api/";
-    private static final String API_SEARCH = API_ROOT + "search";
-    
 
-    @Override
-    public Lyrics get(Track track) throws Exception {
+    private final String apiRoot;
+    private final String apiGet;
+    private final String apiSearch;
 
-        URL url = new URL(API_SEARCH + "?track_name=" + track.getName().replace(" ", "+") + "&artist_name=" + track.getArtist().replace(" ", "+") + "&duration=" + track.getLength()/1000);
+    /**
+     * Create the source for the public Lrclib API
+     */
+    public LrcLib() {
+        this(API_ROOT);
+    }
 
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.connect();
+    /**
+     * Create the source for a Lrclib compatible API
+     *
+     * @param apiRoot The base URL of the API ending with a slash
+     */
+    public LrcLib(String apiRoot) {
+        this.apiRoot = apiRoot;
+        this.apiGet = apiRoot + "get";
+        this.apiSearch = apiRoot + "search";
+    }
 
-        //Getting the response code
-        int responsecode = conn.getResponseCode();
+    @Override
+    public Lyrics get(Track track, Deadline deadline) throws Exception {
+        String query = "?track_name=" + URLEncoder.encode(track.getName(), "UTF-8")
+                + "&artist_name=" + URLEncoder.encode(track.getArtist(), "UTF-8")
+                + "&duration=" + track.getLength() / 1000;
+
+        // Try the exact match first, it answers with a single song
+        Song exact = request(this.apiGet + query, deadline, reader -> SongReader.read(reader, null));
+        if (exact != null && exact.syncedLyrics != null) {
+            return new LyricsReader(exact.syncedLyrics).readLyrics();
+        }
 
-        if (responsecode != 200) {
+        // Search for similar songs on a miss and pick the best match
+        TrackMatcher matcher = TrackMatcher.of(track);
+        Song song = request(this.apiSearch + query, deadline, reader -> SongReader.findBest(reader,
+                candidate -> score(candidate, matcher), TrackMatcher.MIN_SCORE, TrackMatcher.EXACT_SCORE));
+        if (song == null) {
             return null;
-        } else {
-            String inline = "";
-            // use utf-8 for the stream
-            Scanner scanner = new Scanner(url.openStream(), "UTF-8");
-        
-            while (scanner.hasNext()) {
-                inline += scanner.nextLine();
-            }
-            
-            //Close the scanner
-            scanner.close();
-
-
+        }
 
-            Song[] songs = GSON.fromJson(inline, Song[].class);
+        return new LyricsReader(song.syncedLyrics).readLyrics();
+    }
 
+    /**
+     * Score how well the song of a search result matches the requested track
+     *
+     * @param song    The song of the search result
+     * @param matcher The matcher of the requested track
+     * @return The score between 0 and 1
+     */
+    private double score(Song song, TrackMatcher matcher) {
+        if (song.name == null || song.artistName == null) {
+            return 0;
+        }
+        return matcher.score(song.name, song.artistName, song.duration * 1000L);
+    }
 
-            for(Song song : songs) {
-                if( song.name.equalsIgnoreCase(track.getName()) && song.artistName.equalsIgnoreCase(track.getArtist()) ) {
-                    if( (song.duration - track.getLength()/1000) <= 1 ) {
-                        return new LyricsReader(song.syncedLyrics).readLyrics();
-                    }
-                }
+    /**
+     * Send a GET request and parse the response body while it is being read
+     *
+     * @param url      The URL to request
+     * @param deadline The remaining time budget of the lookup
+     * @param parser   Reads the model from the response
+     * @param <T>      The model type of the response
+     * @return The parsed response or null if the server doesn't know the song
+     * @throws Exception Request exception
+     */
+    private <T> T request(String url, Deadline deadline, JsonParser<T> parser) throws Exception {
+        try {
+            return HttpTransport.get().get(url, getHeaders(), deadline,
+                    in -> parser.parse(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))));
+        } catch (HttpResponseException e) {
+            if (e.getResponseCode() == 404) {
+                return null;
             }
-
-            return null;
-            
+            throw e;
         }
     }
 
+    @Override
+    public String getWarmUpUrl() {
+        return this.apiRoot;
+    }
 
     protected String getReferer() {
         return "https://lrclib.net/api/";
@@ -75,4 +122,12 @@ public class LrcLib extends LyricsSource {
         return "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/78.0.3904.97 Safari/537.36";
     }
 
+    /**
+     * Reads a response model from a JSON stream
+     */
+    @FunctionalInterface
+    private interface JsonParser<T> {
+        T parse(JsonReader reader) throws IOException;
+    }
+
 }
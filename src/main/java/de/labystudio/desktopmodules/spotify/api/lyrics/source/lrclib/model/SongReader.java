@@ -0,0 +1,117 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.lrclib.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Streaming parser of the Lrclib song responses.
+ * Only the fields of the song model are read, the synced lyrics are skipped for songs that don't match.
+ *
+ * @author LabyStudio
+ */
+public class SongReader {
+
+    private SongReader() {
+    }
+
+    /**
+     * Read the songs of a search result array and keep the song with synced lyrics with the highest score.
+     * Parsing stops early if a song reaches the exact score.
+     *
+     * @param reader     The reader positioned at the search result array
+     * @param scorer     Scores the name, artist and duration of a song
+     * @param minScore   Minimum score of a song to be accepted
+     * @param exactScore Score of a song that can't be improved
+     * @return The song with the highest score or null if no song reaches the minimum score
+     * @throws IOException If the response is malformed
+     */
+    public static Song findBest(JsonReader reader, ToDoubleFunction<Song> scorer, double minScore, double exactScore) throws IOException {
+        Song best = null;
+        double bestScore = minScore;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            // Only read the lyrics of songs that could replace the best song
+            double threshold = bestScore;
+            Song song = read(reader, candidate -> scorer.applyAsDouble(candidate) >= threshold);
+            if (song.syncedLyrics == null) {
+                continue;
+            }
+
+            double score = scorer.applyAsDouble(song);
+            if (score >= exactScore) {
+                return song;
+            }
+            if (score >= bestScore && (best == null || score > bestScore)) {
+                best = song;
+                bestScore = score;
+            }
+        }
+        reader.endArray();
+
+        return best;
+    }
+
+    /**
+     * Read a single song object
+     *
+     * @param reader The reader positioned at the song object
+     * @param filter Tests the name, artist and duration of the song to decide if the lyrics have to be read
+     *               (Can be null to always read the lyrics)
+     * @return The song
+     * @throws IOException If the response is malformed
+     */
+    public static Song read(JsonReader reader, Predicate<Song> filter) throws IOException {
+        Song song = new Song();
+        boolean hasDuration = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+
+            // Unused or empty fields
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case "id":
+                    song.id = reader.nextInt();
+                    break;
+                case "name":
+                    song.name = reader.nextString();
+                    break;
+                case "artistName":
+                    song.artistName = reader.nextString();
+                    break;
+                case "albumName":
+                    song.albumName = reader.nextString();
+                    break;
+                case "duration":
+                    song.duration = (int) reader.nextDouble();
+                    hasDuration = true;
+                    break;
+                case "syncedLyrics":
+                    // Don't materialize the lyrics of a song that is already known to not match
+                    boolean known = song.name != null && song.artistName != null && hasDuration;
+                    if (filter != null && known && !filter.test(song)) {
+                        reader.skipValue();
+                    } else {
+                        song.syncedLyrics = reader.nextString();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return song;
+    }
+}
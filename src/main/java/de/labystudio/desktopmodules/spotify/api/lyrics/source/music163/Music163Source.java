@@ -1,13 +1,19 @@
 package de.labystudio.desktopmodules.spotify.api.lyrics.source.music163;
 
+import com.google.gson.stream.JsonReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.match.TrackMatcher;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.LyricsReader;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.Deadline;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.LyricsSource;
-import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.LyricResponse;
-import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.QueryResponse;
+import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.ResponseReader;
 import de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model.Song;
 import de.labystudio.spotifyapi.model.Track;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Music163 lyrics database
  * https://music.163.com/
@@ -17,49 +23,91 @@ import de.labystudio.spotifyapi.model.Track;
 public class Music163Source extends LyricsSource {
 
     private static final String API_ROOT = "http://music.163.com/api/";
-    private static final String API_SEARCH = API_ROOT + "search/get?offset=0&total=true&limit=100&type=1&s=%s";
-    private static final String API_LYRIC = API_ROOT + "song/lyric?id=%s&lv=1&kv=1&tv=-1";
+
+    private final String apiRoot;
+    private final String apiSearch;
+    private final String apiLyric;
+
+    /**
+     * Create the source for the public Music163 API
+     */
+    public Music163Source() {
+        this(API_ROOT);
+    }
+
+    /**
+     * Create the source for a Music163 compatible API
+     *
+     * @param apiRoot The base URL of the API ending with a slash
+     */
+    public Music163Source(String apiRoot) {
+        this.apiRoot = apiRoot;
+        this.apiSearch = apiRoot + "search/get?offset=0&total=true&limit=30&type=1&s=%s";
+        this.apiLyric = apiRoot + "song/lyric?id=%s&lv=1&kv=1&tv=-1";
+    }
 
     @Override
-    public Lyrics get(Track track) throws Exception {
-        String json = request(API_SEARCH, track.getName() + " " + track.getArtist(), null);
-        QueryResponse queryResponse = GSON.fromJson(json, QueryResponse.class);
-
-        // Iterate all query results
-        if (queryResponse.result != null) {
-            for (Song song : queryResponse.result.songs) {
-
-                // Has matching track name
-                if (song.name.equalsIgnoreCase(track.getName())) {
-
-                    // Has matching artist name
-                    if (song.artists != null && song.artists.length != 0 && song.artists[0].name.equalsIgnoreCase(track.getArtist())) {
-                        return loadLyrics(song);
-                    }
-                }
-            }
-        }
+    public Lyrics get(Track track, Deadline deadline) throws Exception {
+        // Parse the query results and pick the best match
+        TrackMatcher matcher = TrackMatcher.of(track);
+        Song song = request(this.apiSearch, track.getName() + " " + track.getArtist(), deadline,
+                in -> ResponseReader.findBestSong(jsonReader(in), candidate -> score(candidate, matcher),
+                        TrackMatcher.MIN_SCORE, TrackMatcher.EXACT_SCORE));
 
         // Could not find anything
-        return null;
+        if (song == null) {
+            return null;
+        }
+
+        return loadLyrics(song, deadline);
+    }
+
+    /**
+     * Score how well the song of a query result matches the requested track
+     *
+     * @param song    The song of the query result
+     * @param matcher The matcher of the requested track
+     * @return The score between 0 and 1
+     */
+    private double score(Song song, TrackMatcher matcher) {
+        if (song.name == null || song.artists == null || song.artists.length == 0) {
+            return 0;
+        }
+
+        // All credited artists
+        String[] artists = new String[song.artists.length];
+        for (int i = 0; i < artists.length; i++) {
+            artists[i] = song.artists[i].name;
+        }
+
+        return matcher.score(song.name, artists, song.duration);
     }
 
     /**
      * Download the lyrics file and read it
      *
-     * @param song Music163 song result entry
+     * @param song     Music163 song result entry
+     * @param deadline The remaining time budget of the lookup
      * @return Lyrics containing all voice lines
      * @throws Exception Download exception
      */
-    private Lyrics loadLyrics(Song song) throws Exception {
-        String json = request(API_LYRIC, String.valueOf(song.id), null);
-        LyricResponse lyricResponse = GSON.fromJson(json, LyricResponse.class);
+    private Lyrics loadLyrics(Song song, Deadline deadline) throws Exception {
+        String lyric = request(this.apiLyric, String.valueOf(song.id), deadline, in -> ResponseReader.readLyric(jsonReader(in)));
 
         // Wrong format
-        if (lyricResponse.lrc == null || lyricResponse.lrc.lyric == null)
+        if (lyric == null)
             return null;
 
-        return new LyricsReader(lyricResponse.lrc.lyric).readLyrics();
+        return new LyricsReader(lyric).readLyrics();
+    }
+
+    private static JsonReader jsonReader(InputStream in) {
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getWarmUpUrl() {
+        return this.apiRoot;
     }
 
     protected String getReferer() {
@@ -0,0 +1,164 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Streaming parser of the Music163 responses.
+ * Only the fields of the models are read, everything else is skipped without being materialized.
+ *
+ * @author LabyStudio
+ */
+public class ResponseReader {
+
+    private ResponseReader() {
+    }
+
+    /**
+     * Read the songs of a search query response and keep the song with the highest score.
+     * Parsing stops early if a song reaches the exact score.
+     *
+     * @param reader     The reader positioned at the query response object
+     * @param scorer     Scores the name, artists and duration of a song
+     * @param minScore   Minimum score of a song to be accepted
+     * @param exactScore Score of a song that can't be improved
+     * @return The song with the highest score or null if no song reaches the minimum score
+     * @throws IOException If the response is malformed
+     */
+    public static Song findBestSong(JsonReader reader, ToDoubleFunction<Song> scorer, double minScore, double exactScore) throws IOException {
+        Song best = null;
+        double bestScore = minScore;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("result") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("songs") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Song song = readSong(reader);
+                    double score = scorer.applyAsDouble(song);
+
+                    // Stop parsing at an exact match
+                    if (score >= exactScore) {
+                        return song;
+                    }
+                    if (score >= bestScore && (best == null || score > bestScore)) {
+                        best = song;
+                        bestScore = score;
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        return best;
+    }
+
+    /**
+     * Read the original lyrics of a lyric response, translations and karaoke lyrics are skipped
+     *
+     * @param reader The reader positioned at the lyric response object
+     * @return The lyrics text or null if there is none
+     * @throws IOException If the response is malformed
+     */
+    public static String readLyric(JsonReader reader) throws IOException {
+        String lyric = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("lrc") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("lyric") && reader.peek() == JsonToken.STRING) {
+                    lyric = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+
+        return lyric;
+    }
+
+    private static Song readSong(JsonReader reader) throws IOException {
+        Song song = new Song();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case "name":
+                    song.name = reader.nextString();
+                    break;
+                case "id":
+                    song.id = reader.nextLong();
+                    break;
+                case "artists":
+                    song.artists = readArtists(reader);
+                    break;
+                case "duration":
+                    song.duration = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return song;
+    }
+
+    private static Artist[] readArtists(JsonReader reader) throws IOException {
+        List<Artist> artists = new ArrayList<>(2);
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Artist artist = new Artist();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("name") && reader.peek() == JsonToken.STRING) {
+                    artist.name = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            artists.add(artist);
+        }
+        reader.endArray();
+
+        return artists.toArray(new Artist[0]);
+    }
+}
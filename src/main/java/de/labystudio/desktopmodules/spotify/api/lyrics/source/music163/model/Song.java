@@ -3,7 +3,8 @@ package de.labystudio.desktopmodules.spotify.api.lyrics.source.music163.model;
 public class Song {
 
 	public String name;
-	public int id;
+	public long id;
 	public Artist[] artists;
+	public long duration;
 
 }
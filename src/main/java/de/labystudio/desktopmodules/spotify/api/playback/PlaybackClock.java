@@ -0,0 +1,181 @@
+package de.labystudio.desktopmodules.spotify.api.playback;
+
+import de.labystudio.spotifyapi.SpotifyAPI;
+import de.labystudio.spotifyapi.model.Track;
+
+/**
+ * Smooth playback position shared by all modules.
+ * <p>
+ * Spotify only reports the position in intervals. Between two reports the position is interpolated
+ * with a monotonic clock. A small difference between the interpolated and a newly reported position
+ * is compensated over {@link #CORRECTION_TIME} instead of jumping, a large difference is treated as a seek.
+ * The interpolated position never goes backwards while playing, except for seeks.
+ *
+ * @author LabyStudio
+ */
+public class PlaybackClock {
+
+    /**
+     * Minimum difference in milliseconds between the interpolated and the reported position of a seek
+     */
+    private static final long SEEK_THRESHOLD = 1500;
+
+    /**
+     * Time in milliseconds to compensate the drift of the interpolation
+     */
+    private static final double CORRECTION_TIME = 500;
+
+    /**
+     * Snapshots within this time in nanoseconds share the same Spotify sample,
+     * so all modules of a frame see the same playback
+     */
+    private static final long SAMPLE_INTERVAL = 4000000L;
+
+    private final SpotifyAPI api;
+    private final TimeSource timeSource;
+
+    // The last sample of the Spotify api
+    private boolean sampled;
+    private long sampledAt;
+    private boolean initialized;
+    private boolean connected;
+    private Track track;
+    private boolean hasPosition;
+    private boolean playing;
+    private long reportedPosition;
+
+    // Start of the interpolation
+    private double anchorPosition;
+    private long anchorTime;
+
+    /**
+     * Drift in milliseconds that is compensated within the correction time after the anchor
+     */
+    private double correction;
+
+    private long lastPosition;
+    private long seekCount;
+
+    /**
+     * Create a clock for the given api
+     *
+     * @param api        The api to read the playback from
+     * @param timeSource The monotonic clock to interpolate with
+     */
+    public PlaybackClock(SpotifyAPI api, TimeSource timeSource) {
+        this.api = api;
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * Create a clock for the given api using the system clock
+     *
+     * @param api The api to read the playback from
+     */
+    public PlaybackClock(SpotifyAPI api) {
+        this(api, TimeSource.SYSTEM);
+    }
+
+    /**
+     * Fill the given state with the current playback
+     *
+     * @param state The state to fill
+     */
+    public synchronized void snapshot(PlaybackState state) {
+        long now = this.timeSource.nanoTime();
+
+        // Read the api at most once per sample interval
+        if (!this.sampled || now - this.sampledAt >= SAMPLE_INTERVAL) {
+            this.sample(now);
+        }
+
+        state.initialized = this.initialized;
+        state.connected = this.connected;
+        state.track = this.track;
+        state.hasPosition = this.hasPosition;
+        state.playing = this.playing;
+        state.position = this.hasPosition ? this.positionAt(now) : 0;
+        state.seekCount = this.seekCount;
+    }
+
+    /**
+     * Read the playback from the api and correct the interpolation
+     *
+     * @param now The current time in nanoseconds
+     */
+    private void sample(long now) {
+        boolean initialized = this.api.isInitialized();
+        boolean connected = this.api.isConnected();
+        Track track = connected ? this.api.getTrack() : null;
+        boolean hasPosition = connected && this.api.hasPosition();
+        boolean playing = hasPosition && this.api.isPlaying();
+        long reportedPosition = hasPosition ? this.api.getPosition() : 0;
+
+        if (hasPosition) {
+            if (!this.hasPosition || track != this.track) {
+                // Start interpolating from the reported position
+                this.reset(reportedPosition, now);
+            } else if (reportedPosition != this.reportedPosition || playing != this.playing) {
+                // Spotify reported a new position
+                double predicted = this.interpolate(now);
+                double error = reportedPosition - predicted;
+
+                if (Math.abs(error) > SEEK_THRESHOLD) {
+                    this.reset(reportedPosition, now);
+                    this.seekCount++;
+                } else if (playing && this.playing) {
+                    // Compensate the drift smoothly instead of jumping
+                    this.anchorPosition = predicted;
+                    this.anchorTime = now;
+                    this.correction = error;
+                } else {
+                    // Paused or resumed, the reported position is exact
+                    this.reset(reportedPosition, now);
+                }
+            }
+        }
+
+        this.sampled = true;
+        this.sampledAt = now;
+        this.initialized = initialized;
+        this.connected = connected;
+        this.track = track;
+        this.hasPosition = hasPosition;
+        this.playing = playing;
+        this.reportedPosition = reportedPosition;
+    }
+
+    /**
+     * Get the interpolated position without going backwards
+     *
+     * @param now The current time in nanoseconds
+     * @return Position in milliseconds
+     */
+    private long positionAt(long now) {
+        long position = Math.max((long) this.interpolate(now), this.lastPosition);
+
+        // Don't run past the end of the track
+        if (this.track != null && this.track.getLength() > 0) {
+            position = Math.min(position, this.track.getLength());
+        }
+
+        this.lastPosition = position;
+        return position;
+    }
+
+    private double interpolate(long now) {
+        if (!this.playing) {
+            return this.anchorPosition;
+        }
+
+        double elapsed = (now - this.anchorTime) / 1000000.0;
+        return this.anchorPosition + elapsed + this.correction * Math.min(1, elapsed / CORRECTION_TIME);
+    }
+
+    private void reset(long position, long now) {
+        this.anchorPosition = position;
+        this.anchorTime = now;
+        this.correction = 0;
+        this.lastPosition = position;
+    }
+}
@@ -0,0 +1,65 @@
+package de.labystudio.desktopmodules.spotify.api.playback;
+
+import de.labystudio.spotifyapi.model.Track;
+
+/**
+ * Consistent view of the playback at a single point in time.
+ * The state is owned by a module and filled by {@link PlaybackClock#snapshot(PlaybackState)} once per frame,
+ * so it can be reused without allocations.
+ *
+ * @author LabyStudio
+ */
+public class PlaybackState {
+
+    boolean initialized;
+    boolean connected;
+    Track track;
+    boolean hasPosition;
+    boolean playing;
+    long position;
+    long seekCount;
+
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    public boolean isConnected() {
+        return this.connected;
+    }
+
+    /**
+     * The current playing track
+     *
+     * @return The track or null if Spotify is not connected or nothing is playing
+     */
+    public Track getTrack() {
+        return this.track;
+    }
+
+    public boolean hasPosition() {
+        return this.hasPosition;
+    }
+
+    public boolean isPlaying() {
+        return this.playing;
+    }
+
+    /**
+     * Interpolated position in the current track
+     *
+     * @return Position in milliseconds or 0 if the position is unknown
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Amount of seeks the clock detected so far.
+     * A seek happened between two snapshots if the count changed.
+     *
+     * @return Seek count
+     */
+    public long getSeekCount() {
+        return this.seekCount;
+    }
+}
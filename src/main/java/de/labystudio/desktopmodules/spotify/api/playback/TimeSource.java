@@ -0,0 +1,23 @@
+package de.labystudio.desktopmodules.spotify.api.playback;
+
+/**
+ * Monotonic clock of the playback interpolation.
+ * Can be replaced to make the interpolation deterministic.
+ *
+ * @author LabyStudio
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * Time source of the running JVM
+     */
+    TimeSource SYSTEM = System::nanoTime;
+
+    /**
+     * Current value of the clock
+     *
+     * @return Time in nanoseconds with an arbitrary origin
+     */
+    long nanoTime();
+}
@@ -7,18 +7,21 @@ import de.labystudio.desktopmodules.core.module.Module;
 import de.labystudio.desktopmodules.core.renderer.IRenderContext;
 import de.labystudio.desktopmodules.core.renderer.font.Font;
 import de.labystudio.desktopmodules.core.renderer.font.FontStyle;
-import de.labystudio.desktopmodules.core.renderer.font.StringAlignment;
-import de.labystudio.desktopmodules.core.renderer.font.StringEffect;
 import de.labystudio.desktopmodules.spotify.SpotifyAddon;
 import de.labystudio.desktopmodules.spotify.api.lyrics.LyricsProvider;
+import de.labystudio.desktopmodules.spotify.api.lyrics.LyricsTimeoutException;
+import de.labystudio.desktopmodules.spotify.api.lyrics.metrics.LyricsMetrics;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
 import de.labystudio.desktopmodules.spotify.api.lyrics.reader.VoiceLine;
-import de.labystudio.spotifyapi.SpotifyAPI;
+import de.labystudio.desktopmodules.spotify.api.playback.PlaybackState;
+import de.labystudio.desktopmodules.spotify.render.LyricsLayout;
+import de.labystudio.desktopmodules.spotify.render.TextBlock;
 import de.labystudio.spotifyapi.SpotifyListenerAdapter;
 import de.labystudio.spotifyapi.model.Track;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.File;
 
 /**
  * Module to display the lyrics of the current playing Spotify song
@@ -28,6 +31,7 @@ import java.awt.image.BufferedImage;
 public class LyricsModule extends Module<SpotifyAddon> {
 
     private static final Font FONT = new Font("Dialog", FontStyle.PLAIN, 12);
+    private static final int LINE_HEIGHT = 12;
 
     /**
      * If the lyrics is not synchronized with the actual song
@@ -35,18 +39,46 @@ public class LyricsModule extends Module<SpotifyAddon> {
      */
     private static final int VOICE_LINE_SHIFT = -2;
 
-    private final LyricsProvider lyricsProvider = new LyricsProvider();
+    /**
+     * Time in milliseconds the voice line animation is moved back after a seek, so it is already finished
+     */
+    private static final long SEEK_ANIMATION_SKIP = 1000;
+
     private Lyrics lyrics;
 
+    // Layout of the voice lines, only used on the render thread
+    private LyricsLayout layout;
+
     private BufferedImage textureSpotify;
 
     private boolean smoothAnimation;
+    private boolean concurrentLookup;
+    private int hedgeDelay;
+    private int lookupTimeout;
+    private boolean warmUpConnections;
+    private String localLibrary;
+
+    // The provider of the addon that was configured with the settings of this module
+    private LyricsProvider configuredProvider;
 
     private final VoiceLine[] voiceLineStack = new VoiceLine[3];
+    private final int[] voiceLineStackIndices = new int[3];
+    private Lyrics voiceLineStackLyrics;
+
+    // Text of the voice line stack and the track name
+    private final TextBlock voiceLineBlock = new TextBlock(FONT, Color.WHITE, this.voiceLineStack.length, LINE_HEIGHT);
+    private final TextBlock trackBlock = new TextBlock(FONT, Color.WHITE, 2, LINE_HEIGHT);
+    private final int[] voiceLineWindow = new int[3];
+    private Lyrics.Cursor cursor;
     private long lastVoiceLineChanged;
 
     private long customOffsetShift = 0;
 
+    // Playback of the current tick and frame
+    private final PlaybackState tickPlayback = new PlaybackState();
+    private final PlaybackState renderPlayback = new PlaybackState();
+    private long seekCount;
+
     public LyricsModule() {
         super(550, 25);
     }
@@ -60,11 +92,29 @@ public class LyricsModule extends Module<SpotifyAddon> {
             @Override
             public void onTrackChanged(Track track) {
                 customOffsetShift = 0;
-                lyricsProvider.requestAsync(track, newLyrics -> {
+                long trackChangedAt = System.nanoTime();
+
+                // Remove the lyrics of the previous track
+                lyrics = null;
+
+                LyricsProvider lyricsProvider = addon.getLyricsProvider();
+                configureLyricsProvider(lyricsProvider);
+                lyricsProvider.requestAsync(track, (newLyrics, throwable) -> {
+                    if (throwable instanceof LyricsTimeoutException) {
+                        System.err.println(throwable.getMessage());
+                    } else if (throwable != null) {
+                        throwable.printStackTrace();
+                    }
+
                     lyrics = newLyrics;
+
+                    // Time until the lyrics are available for rendering
+                    LyricsMetrics.get().recordTrackChange(System.nanoTime() - trackChangedAt);
                 });
             }
         });
+
+        this.configureLyricsProvider(addon.getLyricsProvider());
     }
 
     @Override
@@ -72,46 +122,62 @@ public class LyricsModule extends Module<SpotifyAddon> {
         super.onLoadConfig(config);
 
         this.smoothAnimation = Addon.getConfigValue(config, "smooth_animation", true);
+
+        // Lookup mode of the lyrics sources
+        this.concurrentLookup = Addon.getConfigValue(config, "concurrent_lookup", true);
+        this.hedgeDelay = Addon.getConfigValue(config, "hedge_delay", (int) LyricsProvider.DEFAULT_HEDGE_DELAY);
+        this.lookupTimeout = Addon.getConfigValue(config, "lookup_timeout", (int) LyricsProvider.DEFAULT_TIMEOUT);
+        this.warmUpConnections = Addon.getConfigValue(config, "warm_up_connections", true);
+
+        // Directory of local LRC files that are preferred over the online sources
+        this.localLibrary = Addon.getConfigValue(config, "local_library", "");
     }
 
     @Override
     public void onTick() {
-        SpotifyAPI api = this.addon.getSpotifyAPI();
-
-        // Only if the lyrics has voice lines
-        if (this.lyrics != null && this.lyrics.hasLines() && api.hasPosition() && api.isConnected()) {
-            long progress = api.getPosition() + this.customOffsetShift;
+        // The addon creates a new provider when it is enabled again
+        LyricsProvider lyricsProvider = this.addon.getLyricsProvider();
+        if (lyricsProvider != this.configuredProvider && !lyricsProvider.isShutdown()) {
+            this.configureLyricsProvider(lyricsProvider);
+        }
 
-            // Indicator if the next voice line should be displayed
-            boolean voiceLineChanged = false;
+        PlaybackState playback = this.tickPlayback;
+        this.addon.getPlaybackClock().snapshot(playback);
+        Lyrics lyrics = this.lyrics;
 
-            // Iterate the voice line stack and check if the offset changed
-            for (int i = 0; i < this.voiceLineStack.length; i++) {
-                // Get the voice line at given offset and shift
-                VoiceLine voiceLine = this.lyrics.getVoiceLineAt(progress, VOICE_LINE_SHIFT + i);
+        // Only if the lyrics has voice lines
+        if (lyrics != null && lyrics.hasLines() && playback.hasPosition() && playback.isConnected()) {
+            long progress = playback.getPosition() + this.customOffsetShift;
 
-                // We just have to compare the first one because it is always the same result for each line
-                if (i == 0) {
+            // Create a new cursor for new lyrics
+            if (this.cursor == null || this.cursor.getLyrics() != lyrics) {
+                this.cursor = lyrics.cursor();
+            }
 
-                    // Compare the voice line in the stack with the one from the current iteration
-                    if (compare(this.voiceLineStack[i], voiceLine)) {
+            // Get the indices of all voice lines in the stack at once
+            int[] window = this.voiceLineWindow;
+            this.cursor.fill(progress, VOICE_LINE_SHIFT, window);
 
-                        // No changes, we don't have to continue here
-                        break;
-                    }
-
-                    // The voice lines have changed, we need an animation for that!
-                    voiceLineChanged = true;
-                }
+            // We just have to compare the first one because it is always the same result for each line
+            VoiceLine first = this.voiceLineStack[0];
+            boolean voiceLineChanged = this.voiceLineStackLyrics != lyrics || (window[0] == -1
+                    ? first != null
+                    : first == null || first.getOffset() != lyrics.getOffset(window[0]));
 
+            // The voice lines have changed, we need an animation for that!
+            if (voiceLineChanged) {
                 // Update voice lines in stack
-                this.voiceLineStack[i] = voiceLine;
-            }
+                for (int i = 0; i < this.voiceLineStack.length; i++) {
+                    this.voiceLineStack[i] = window[i] == -1 ? null : lyrics.getVoiceLine(window[i]);
+                    this.voiceLineStackIndices[i] = window[i];
+                }
+                this.voiceLineStackLyrics = lyrics;
 
-            // Mark the offset when the voice line changed in the stack
-            if (voiceLineChanged) {
-                this.lastVoiceLineChanged = progress;
+                // Mark the offset when the voice line changed in the stack, skip the animation after a seek
+                boolean seeked = playback.getSeekCount() != this.seekCount;
+                this.lastVoiceLineChanged = seeked ? progress - SEEK_ANIMATION_SKIP : progress;
             }
+            this.seekCount = playback.getSeekCount();
         }
     }
 
@@ -119,42 +185,32 @@ public class LyricsModule extends Module<SpotifyAddon> {
     public void onRender(IRenderContext context, int width, int height, int mouseX, int mouseY) {
         context.drawImage(this.textureSpotify, this.rightBound ? this.width - this.height : 0, 0, height, height);
 
-        SpotifyAPI api = this.addon.getSpotifyAPI();
+        PlaybackState playback = this.renderPlayback;
+        this.addon.getPlaybackClock().snapshot(playback);
+
+        // Anchor of the text next to the image
+        double x = this.rightBound ? this.width - this.height - 5 : this.height + 5;
+        int textWidth = this.width - this.height - 5;
 
         // No voice lines in the stack
         if (this.lyrics == null
                 || !this.lyrics.hasLines()
                 || this.voiceLineStack[0] == null
-                || !api.hasPosition()
-                || !api.isConnected()) {
-
-            Track track = api.isConnected() ? api.getTrack() : null;
-
-            // Draw track name
-            context.drawString(
-                    track == null ? "Spotify" : track.getName(),
-                    this.rightBound ? this.width - this.height - 5 : this.height + 5, (float) 10,
-                    StringAlignment.from(this.rightBound),
-                    StringEffect.SHADOW,
-                    Color.WHITE,
-                    FONT
-            );
-
-            // Draw artist name
-            context.drawString(
-                    track == null ? "No song playing" : track.getArtist(),
-                    this.rightBound ? this.width - this.height - 5 : this.height + 5,
-                    (float) 22,
-                    StringAlignment.from(this.rightBound),
-                    StringEffect.SHADOW,
-                    Color.WHITE,
-                    FONT
-            );
+                || !playback.hasPosition()
+                || !playback.isConnected()) {
+
+            Track track = playback.isConnected() ? playback.getTrack() : null;
+
+            // Draw track name and artist name
+            this.trackBlock.setLine(0, track == null ? "Spotify" : track.getName());
+            this.trackBlock.setLine(1, track == null ? "No song playing" : track.getArtist());
+            this.trackBlock.setBounds(textWidth, this.rightBound);
+            this.trackBlock.draw(context, x, 10);
             return;
         }
 
         // Get offset of the current playing track
-        long progress = api.getPosition() + this.customOffsetShift;
+        long progress = playback.getPosition() + this.customOffsetShift;
 
         // Get the progress of the current playing animation
         double animationProgress = (progress - this.lastVoiceLineChanged) / 50d;
@@ -171,26 +227,72 @@ public class LyricsModule extends Module<SpotifyAddon> {
         // The animated y position of the voice lines
         double y = 10 - animationProgressInRange;
 
-        // Iterate all voice lines in the stack
-        for (VoiceLine voiceLine : this.voiceLineStack) {
-
-            // Draw the next voice line in the stack
-            if (voiceLine != null) {
-                context.drawString(
-                        voiceLine.getContent(),
-                        this.rightBound ? this.width - this.height - 5 : this.height + 5,
-                        (float) y,
-                        StringAlignment.from(this.rightBound),
-                        StringEffect.SHADOW,
-                        Color.WHITE,
-                        FONT
-                );
+        // Layout the voice lines again if the lyrics or the size of the module changed
+        Lyrics stackLyrics = this.voiceLineStackLyrics;
+        LyricsLayout layout = this.layout;
+        int lyricsWidth = this.getLyricsWidth();
+        if (stackLyrics != null && (layout == null || !layout.matches(stackLyrics, FONT, lyricsWidth))) {
+            this.layout = layout = LyricsLayout.of(stackLyrics, FONT, lyricsWidth);
+        }
+
+        // Draw the voice lines in the stack
+        for (int i = 0; i < this.voiceLineStack.length; i++) {
+            VoiceLine voiceLine = this.voiceLineStack[i];
+            int index = this.voiceLineStackIndices[i];
+
+            if (voiceLine == null) {
+                this.voiceLineBlock.setLine(i, null);
+            } else if (layout != null && index < stackLyrics.size()) {
+                this.voiceLineBlock.setLine(i, layout.getLine(context, index));
+            } else {
+                this.voiceLineBlock.setLine(i, voiceLine.getContent());
             }
+        }
+        this.voiceLineBlock.setBounds(textWidth, this.rightBound);
+        this.voiceLineBlock.draw(context, x, y);
+    }
 
-            y += 12;
+    /**
+     * Apply the lookup settings of this module to the provider.
+     * A provider that wasn't configured before also indexes the local library and warms up its connections.
+     *
+     * @param lyricsProvider The current provider of the addon
+     */
+    private synchronized void configureLyricsProvider(LyricsProvider lyricsProvider) {
+        lyricsProvider.setConcurrent(this.concurrentLookup);
+        lyricsProvider.setHedgeDelay(this.hedgeDelay);
+        lyricsProvider.setTimeout(this.lookupTimeout);
+        lyricsProvider.setLocalLibrary(this.getLocalLibrary());
+
+        if (lyricsProvider == this.configuredProvider) {
+            return;
+        }
+        this.configuredProvider = lyricsProvider;
+
+        // Connect to the lyrics sources before the first track is played
+        if (this.warmUpConnections) {
+            lyricsProvider.warmUp();
         }
     }
 
+    /**
+     * Directory of the local lyrics library
+     *
+     * @return The directory or null if no library is configured
+     */
+    private File getLocalLibrary() {
+        return this.localLibrary == null || this.localLibrary.isEmpty() ? null : new File(this.localLibrary);
+    }
+
+    /**
+     * Maximum width of a voice line next to the image
+     *
+     * @return Width in pixels
+     */
+    private int getLyricsWidth() {
+        return this.width - this.height - 5 - TextBlock.SHADOW_OFFSET;
+    }
+
     @Override
     public void onMouseScroll(int x, int y, int velocity) {
         this.customOffsetShift += velocity * 1000L;
@@ -221,15 +323,4 @@ public class LyricsModule extends Module<SpotifyAddon> {
         return "Lyrics";
     }
 
-    /**
-     * Compare the offset of two voice lines
-     *
-     * @param first  First voice line to compare (Can be null)
-     * @param second Second voice line to compare (Can be null)
-     * @return Matching offset
-     */
-    private boolean compare(VoiceLine first, VoiceLine second) {
-        return first == null ? second == null : second != null && first.getOffset() == second.getOffset();
-    }
-
 }
@@ -9,14 +9,24 @@ import de.labystudio.desktopmodules.core.renderer.font.FontStyle;
 import de.labystudio.desktopmodules.core.renderer.font.StringAlignment;
 import de.labystudio.desktopmodules.core.renderer.font.StringEffect;
 import de.labystudio.desktopmodules.spotify.SpotifyAddon;
+import de.labystudio.desktopmodules.spotify.api.cover.CoverCache;
+import de.labystudio.desktopmodules.spotify.api.cover.CoverDiskCache;
+import de.labystudio.desktopmodules.spotify.api.playback.PlaybackState;
+import de.labystudio.desktopmodules.spotify.render.Images;
+import de.labystudio.desktopmodules.spotify.render.TextBlock;
 import de.labystudio.spotifyapi.SpotifyAPI;
 import de.labystudio.spotifyapi.SpotifyListenerAdapter;
 import de.labystudio.spotifyapi.model.MediaKey;
 import de.labystudio.spotifyapi.model.Track;
 import de.labystudio.spotifyapi.open.OpenSpotifyAPI;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Spotify module to display track, cover, progress..
@@ -31,9 +41,54 @@ public class SpotifyModule extends Module<SpotifyAddon> {
     private static final Color COLOR_BACKGROUND = new Color(40, 40, 40, 155);
     private static final Color COLOR_PROGRESS_BACKGROUND = new Color(20, 20, 20, 155);
     private static final Color COLOR_PROGRESS = new Color(30, 215, 96, 255);
+    private static final Color COLOR_TRANSPARENT = new Color(0, 0, 0, 0);
+
+    private static final double TEXT_Y = 24;
+    private static final double GRADIENT_WIDTH = 120;
+    private static final double PROGRESS_HEIGHT = FONT_TIME.getSize() / 2F;
+    private static final int MAX_TEXT_LENGTH = 34;
+    private static final int CONTROLS_Y = 25;
 
     private final OpenSpotifyAPI openSpotifyAPI = new OpenSpotifyAPI();
-    private BufferedImage coverImage;
+    private final CoverCache coverCache = new CoverCache();
+    private volatile BufferedImage coverImage;
+
+    /**
+     * Cache key of the current track, covers of other tracks are dropped
+     */
+    private volatile String coverKey;
+
+    // Render state of the current track
+    private Track renderedTrack;
+    private String title = "Spotify";
+    private String subTitle = "No song playing";
+
+    // Time labels of the progress bar
+    private long elapsedSecond;
+    private long remainingSecond;
+    private String elapsedTime;
+    private String remainingTime;
+
+    // Playback of the current frame
+    private final PlaybackState playback = new PlaybackState();
+
+    // Text of the title block, it is drawn by the framework every frame
+    private final TextBlock titleBlock = new TextBlock(FONT_TITLE, Color.WHITE, 2, (int) TEXT_Y);
+
+    // Offscreen image of the control buttons, the only part of the module that is cached
+    private BufferedImage controlLayer;
+    private boolean controlLayerPlaying;
+    private boolean controlLayerDirty = true;
+
+    // Layout of the current module size
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private boolean layoutRightBound;
+    private double coverX;
+    private double textX;
+    private double controlsX;
+    private double progressX;
+    private double progressWidth;
 
     private BufferedImage textureSpotify;
     private BufferedImage textureControlPlay;
@@ -52,12 +107,91 @@ public class SpotifyModule extends Module<SpotifyAddon> {
         addon.getSpotifyAPI().registerListener(new SpotifyListenerAdapter() {
             @Override
             public void onTrackChanged(Track track) {
-                coverImage = null;
-                openSpotifyAPI.requestImageAsync(track, image -> coverImage = image);
+                requestCover(track);
             }
         });
     }
 
+    /**
+     * Show the cached cover of the track or download it
+     *
+     * @param track The new track
+     */
+    private void requestCover(Track track) {
+        String key = CoverCache.keyOf(track);
+        int size = this.height;
+
+        BufferedImage cover = this.coverCache.get(key, size);
+        synchronized (this.coverCache) {
+            this.coverKey = key;
+            this.coverImage = cover;
+        }
+
+        if (cover != null) {
+            return;
+        }
+
+        // The executor and disk cache are replaced when the addon is enabled again
+        ExecutorService coverExecutor = this.addon.getCoverExecutor();
+        CoverDiskCache coverDiskCache = this.addon.getCoverDiskCache();
+
+        try {
+            coverExecutor.execute(() -> this.loadCover(track, key, size, coverDiskCache));
+        } catch (RejectedExecutionException e) {
+            // The addon is disabled
+        }
+    }
+
+    /**
+     * Load the cover of a track from the disk or download it
+     *
+     * @param track          The track to load the cover of
+     * @param key            Cache key of the track
+     * @param size           The size the cover is drawn at
+     * @param coverDiskCache The persistent cache of the covers
+     */
+    private void loadCover(Track track, String key, int size, CoverDiskCache coverDiskCache) {
+        // The track was skipped before its cover was loaded
+        if (!key.equals(this.coverKey)) {
+            return;
+        }
+
+        // Load the cover from the disk or download it
+        BufferedImage scaledCover = coverDiskCache.get(key, size);
+        if (scaledCover == null) {
+            scaledCover = this.downloadCover(track, size);
+            if (scaledCover == null) {
+                return;
+            }
+            coverDiskCache.put(key, scaledCover);
+        }
+        this.coverCache.put(key, scaledCover);
+
+        // Don't overwrite the cover if the track changed in the meantime
+        synchronized (this.coverCache) {
+            if (key.equals(this.coverKey)) {
+                this.coverImage = scaledCover;
+            }
+        }
+    }
+
+    /**
+     * Download the cover of a track and scale it once instead of every frame
+     *
+     * @param track The track to download the cover of
+     * @param size  The size the cover is drawn at
+     * @return The scaled cover or null if it could not be downloaded
+     */
+    private BufferedImage downloadCover(Track track, int size) {
+        try {
+            BufferedImage image = this.openSpotifyAPI.requestImage(track);
+            return image == null ? null : CoverCache.scale(image, size);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     @Override
     public void loadTextures(TextureLoader textureLoader) {
         String spotifyPath = "textures/spotify/";
@@ -67,17 +201,33 @@ public class SpotifyModule extends Module<SpotifyAddon> {
         this.textureControlPause = textureLoader.load(spotifyPath + "control_pause.png");
         this.textureControlNext = textureLoader.load(spotifyPath + "control_next.png");
         this.textureControlPrevious = textureLoader.load(spotifyPath + "control_previous.png");
+        this.controlLayerDirty = true;
     }
 
     @Override
     public void onRender(IRenderContext context, int width, int height, int mouseX, int mouseY) {
-        SpotifyAPI api = this.addon.getSpotifyAPI();
-        Track track = api.isConnected() ? api.getTrack() : null;
+        PlaybackState playback = this.playback;
+        this.addon.getPlaybackClock().snapshot(playback);
+
+        Track track = playback.isConnected() ? playback.getTrack() : null;
         boolean extendedModule = isMouseOver();
 
+        // Update the render state only if its inputs changed
+        if (track != this.renderedTrack) {
+            this.updateTrackText(track);
+        }
+        if (width != this.layoutWidth || height != this.layoutHeight || this.rightBound != this.layoutRightBound) {
+            this.updateLayout(context, width, height);
+        }
+
         // Draw spotify image
         BufferedImage trackCover = track == null || this.coverImage == null ? this.textureSpotify : this.coverImage;
-        context.drawImage(trackCover, this.rightBound ? width - height : 0, 0, height, height);
+        if (trackCover.getWidth() == height && trackCover.getHeight() == height) {
+            // Pre-scaled cover
+            context.drawImage(trackCover, this.coverX, 0);
+        } else {
+            context.drawImage(trackCover, this.coverX, 0, height, height);
+        }
 
         // Draw background
         if (extendedModule) {
@@ -86,15 +236,11 @@ public class SpotifyModule extends Module<SpotifyAddon> {
 
         // Draw track title and artist
         {
-            double y = 24;
-            double x = this.rightBound ? width - height - 5 : height + 5;
-
-            String title = track == null ? "Spotify" : track.getName().length() > 34 ? track.getName().substring(0, 34) : track.getName();
-            String subTitle = track == null ? "No song playing" : track.getArtist().length() > 34 ? track.getArtist().substring(0, 34) : track.getArtist();
+            String subTitle = this.subTitle;
 
             // Set error message if present
-            if (api.isInitialized()) {
-                if (api.isConnected()) {
+            if (playback.isInitialized()) {
+                if (playback.isConnected()) {
                     if (this.addon.getLastError() != null) {
                         subTitle = this.addon.getLastError();
                     }
@@ -106,75 +252,152 @@ public class SpotifyModule extends Module<SpotifyAddon> {
             }
 
             // Draw text
-            StringEffect stringEffect = extendedModule ? StringEffect.NONE : StringEffect.SHADOW;
-            context.drawString(title, x, y, StringAlignment.from(this.rightBound), stringEffect, Color.WHITE, FONT_TITLE);
-            context.drawString(subTitle, x, y * 2, StringAlignment.from(this.rightBound), stringEffect, Color.WHITE, FONT_TITLE);
+            this.titleBlock.setLine(0, this.title);
+            this.titleBlock.setLine(1, subTitle);
+            this.titleBlock.setShadow(!extendedModule);
+            this.titleBlock.draw(context, this.textX, TEXT_Y);
         }
 
+        long position = playback.getPosition();
+
         // Change module rendering depending on mouse hover state
         if (extendedModule) {
             // Draw controls
             if (track != null) {
-                double x = this.rightBound ? 20 : width - 45;
-                double y = 25;
-                double gradientWidth = 120;
-
-                // Cover title and artist behind the control buttons
-                if (this.rightBound) {
-                    context.drawGradientRect(0, 0, gradientWidth, height,
-                            COLOR_BACKGROUND, gradientWidth / 2D, 0,
-                            new Color(0, 0, 0, 0), gradientWidth, 0);
-                } else {
-                    context.drawGradientRect(width - gradientWidth, 0, width, height,
-                            new Color(0, 0, 0, 0), width - gradientWidth, 0,
-                            COLOR_BACKGROUND, width - gradientWidth / 2D, 0);
+                boolean playing = playback.isPlaying();
+                if (this.controlLayerDirty || playing != this.controlLayerPlaying) {
+                    this.updateControlLayer(width, height, playing);
                 }
-
-                // Draw previous, play pause and next
-                context.drawImage(this.textureControlPrevious, x - 11, y);
-                context.drawImage(api.isPlaying() ? this.textureControlPause : this.textureControlPlay, x, y);
-                context.drawImage(this.textureControlNext, x + 28, y);
+                context.drawImage(this.controlLayer, 0, 0);
             }
 
             // Draw progress bar
-            if (track != null && api.hasPosition()) {
-                double paddingX = context.getStringWidth("00:00", FONT_TIME) + 5;
-
-                double x = this.rightBound ? paddingX : height + paddingX;
+            if (track != null && playback.hasPosition()) {
+                double x = this.progressX;
                 double y = height - 5;
-
-                double progressWidth = this.width - paddingX - x - (this.rightBound ? height : 0);
-                double progressHeight = FONT_TIME.getSize() / 2F;
+                double progressWidth = this.progressWidth;
 
                 // Background
-                context.drawRectWH(x, y - progressHeight, progressWidth, progressHeight, COLOR_PROGRESS_BACKGROUND);
+                context.drawRectWH(x, y - PROGRESS_HEIGHT, progressWidth, PROGRESS_HEIGHT, COLOR_PROGRESS_BACKGROUND);
 
                 // Green bar
-                context.drawRectWH(x, y - progressHeight, (progressWidth / (double) track.getLength() * api.getPosition()), progressHeight, COLOR_PROGRESS);
+                context.drawRectWH(x, y - PROGRESS_HEIGHT, (progressWidth / (double) track.getLength() * position), PROGRESS_HEIGHT, COLOR_PROGRESS);
+
+                // Format the time labels only when the second changes
+                this.updateTimeLabels(position, track.getLength() - position);
 
                 // Elapsed time
-                String elapsedTime = formatTime(api.getPosition());
-                context.drawString(elapsedTime, x - 3, y, StringAlignment.RIGHT, StringEffect.NONE, Color.WHITE, FONT_TIME);
+                context.drawString(this.elapsedTime, x - 3, y, StringAlignment.RIGHT, StringEffect.NONE, Color.WHITE, FONT_TIME);
 
                 // Remaining time
-                String remainingTime = formatTime(track.getLength() - api.getPosition());
-                context.drawString(remainingTime, x + progressWidth + 3, y, StringAlignment.LEFT, StringEffect.NONE, Color.WHITE, FONT_TIME);
+                context.drawString(this.remainingTime, x + progressWidth + 3, y, StringAlignment.LEFT, StringEffect.NONE, Color.WHITE, FONT_TIME);
             }
         } else {
-            double x = this.rightBound ? width - height : 0;
-
             // Draw progress on cover
-            if (track != null && api.hasPosition()) {
-                context.drawRectWH(x, height - 3, height, 3, COLOR_PROGRESS_BACKGROUND);
-                context.drawRectWH(x, height - 3, (this.height / (double) track.getLength() * api.getPosition()), 3, COLOR_PROGRESS);
+            if (track != null && playback.hasPosition()) {
+                context.drawRectWH(this.coverX, height - 3, height, 3, COLOR_PROGRESS_BACKGROUND);
+                context.drawRectWH(this.coverX, height - 3, (this.height / (double) track.getLength() * position), 3, COLOR_PROGRESS);
             }
         }
     }
 
+    /**
+     * Create the title and artist text of the track
+     *
+     * @param track The current track (Can be null)
+     */
+    private void updateTrackText(Track track) {
+        this.renderedTrack = track;
+        this.title = track == null ? "Spotify" : truncate(track.getName());
+        this.subTitle = track == null ? "No song playing" : truncate(track.getArtist());
+    }
+
+    /**
+     * Calculate the positions of all elements for the given module size
+     *
+     * @param context The render context to measure the time labels
+     * @param width   The width of the module
+     * @param height  The height of the module
+     */
+    private void updateLayout(IRenderContext context, int width, int height) {
+        this.layoutWidth = width;
+        this.layoutHeight = height;
+        this.layoutRightBound = this.rightBound;
+
+        this.coverX = this.rightBound ? width - height : 0;
+        this.textX = this.rightBound ? width - height - 5 : height + 5;
+        this.controlsX = this.rightBound ? 20 : width - 45;
+        this.titleBlock.setBounds(width - height - 5, this.rightBound);
+        this.controlLayerDirty = true;
+
+        // The time labels have a fixed width
+        double paddingX = context.getStringWidth("00:00", FONT_TIME) + 5;
+        this.progressX = this.rightBound ? paddingX : height + paddingX;
+        this.progressWidth = width - paddingX - this.progressX - (this.rightBound ? height : 0);
+    }
+
+    /**
+     * Draw the gradient and the control buttons into the control layer
+     *
+     * @param width   The width of the module
+     * @param height  The height of the module
+     * @param playing Spotify is playing, the pause button is shown
+     */
+    private void updateControlLayer(int width, int height, boolean playing) {
+        this.controlLayerDirty = false;
+        this.controlLayerPlaying = playing;
+
+        if (this.controlLayer == null || this.controlLayer.getWidth() != width || this.controlLayer.getHeight() != height) {
+            this.controlLayer = Images.createCompatibleImage(width, height);
+        }
+
+        Graphics2D graphics = this.controlLayer.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setComposite(AlphaComposite.SrcOver);
+
+            // Cover title and artist behind the control buttons
+            int gradientWidth = (int) GRADIENT_WIDTH;
+            if (this.rightBound) {
+                graphics.setPaint(new GradientPaint(gradientWidth / 2F, 0, COLOR_BACKGROUND, gradientWidth, 0, COLOR_TRANSPARENT));
+                graphics.fillRect(0, 0, gradientWidth, height);
+            } else {
+                graphics.setPaint(new GradientPaint(width - gradientWidth, 0, COLOR_TRANSPARENT, width - gradientWidth / 2F, 0, COLOR_BACKGROUND));
+                graphics.fillRect(width - gradientWidth, 0, gradientWidth, height);
+            }
+
+            // Draw previous, play pause and next
+            int x = (int) this.controlsX;
+            graphics.drawImage(this.textureControlPrevious, x - 11, CONTROLS_Y, null);
+            graphics.drawImage(playing ? this.textureControlPause : this.textureControlPlay, x, CONTROLS_Y, null);
+            graphics.drawImage(this.textureControlNext, x + 28, CONTROLS_Y, null);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * Format the elapsed and remaining time if the displayed second changed
+     *
+     * @param elapsed   Elapsed time in milliseconds
+     * @param remaining Remaining time in milliseconds
+     */
+    private void updateTimeLabels(long elapsed, long remaining) {
+        if (this.elapsedTime == null || elapsed / 1000 != this.elapsedSecond) {
+            this.elapsedSecond = elapsed / 1000;
+            this.elapsedTime = formatTime(elapsed);
+        }
+        if (this.remainingTime == null || remaining / 1000 != this.remainingSecond) {
+            this.remainingSecond = remaining / 1000;
+            this.remainingTime = formatTime(remaining);
+        }
+    }
+
     @Override
     public void onMousePressed(int x, int y, int mouseButton) {
         int controlsX = this.rightBound ? 20 : this.width - 45;
-        int controlsY = 25;
+        int controlsY = CONTROLS_Y;
 
         SpotifyAPI api = this.addon.getSpotifyAPI();
 
@@ -220,4 +443,8 @@ public class SpotifyModule extends Module<SpotifyAddon> {
     private String formatTime(long duration) {
         return String.format("%02d:%02d", duration / 1000 / 60, duration / 1000 % 60);
     }
+
+    private static String truncate(String text) {
+        return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
 }
@@ -0,0 +1,35 @@
+package de.labystudio.desktopmodules.spotify.render;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Helpers to create images that can be drawn without conversion
+ *
+ * @author LabyStudio
+ */
+public class Images {
+
+    private Images() {
+    }
+
+    /**
+     * Create a translucent image in the pixel format of the screen
+     *
+     * @param width  Width of the image
+     * @param height Height of the image
+     * @return A new transparent image
+     */
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        // Same pixel layout as the screen, so the image can be copied without conversion
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
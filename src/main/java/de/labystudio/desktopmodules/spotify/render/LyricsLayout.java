@@ -0,0 +1,123 @@
+package de.labystudio.desktopmodules.spotify.render;
+
+import de.labystudio.desktopmodules.core.renderer.IRenderContext;
+import de.labystudio.desktopmodules.core.renderer.font.Font;
+import de.labystudio.desktopmodules.spotify.api.lyrics.reader.Lyrics;
+
+/**
+ * Layout of all voice lines of a lyrics for a font and a maximum width.
+ * <p>
+ * Every distinct voice line is measured with the render context the first time it is drawn
+ * and cut off with an ellipsis if it doesn't fit into the width. The layout is only used on the render thread.
+ *
+ * @author LabyStudio
+ */
+public class LyricsLayout {
+
+    private static final String ELLIPSIS = "\u2026";
+
+    private final Lyrics lyrics;
+    private final Font font;
+    private final int width;
+
+    /**
+     * Displayed text for each entry of the content table, null if it wasn't measured yet
+     */
+    private final String[] lines;
+
+    private LyricsLayout(Lyrics lyrics, Font font, int width) {
+        this.lyrics = lyrics;
+        this.font = font;
+        this.width = width;
+        this.lines = new String[lyrics.getDistinctLines()];
+    }
+
+    /**
+     * Create the layout of the given lyrics
+     *
+     * @param lyrics The lyrics to layout
+     * @param font   The font of the voice lines
+     * @param width  Maximum width of a voice line in pixels
+     * @return The layout of all voice lines
+     */
+    public static LyricsLayout of(Lyrics lyrics, Font font, int width) {
+        return new LyricsLayout(lyrics, font, width);
+    }
+
+    /**
+     * Check if the layout was created for the given parameters
+     *
+     * @param lyrics The lyrics to layout
+     * @param font   The font of the voice lines
+     * @param width  Maximum width of a voice line in pixels
+     * @return The layout can be reused
+     */
+    public boolean matches(Lyrics lyrics, Font font, int width) {
+        return this.lyrics == lyrics && this.font.equals(font) && this.width == width;
+    }
+
+    /**
+     * Get the displayed text of a voice line and measure it if it is drawn for the first time
+     *
+     * @param context The render context the voice line is drawn with
+     * @param index   Index of the voice line in the lyrics
+     * @return The text that fits into the width
+     */
+    public String getLine(IRenderContext context, int index) {
+        int contentIndex = this.lyrics.getContentIndex(index);
+        String line = this.lines[contentIndex];
+        if (line == null) {
+            line = truncate(context, this.font, this.lyrics.getDistinctContent(contentIndex), this.width);
+            this.lines[contentIndex] = line;
+        }
+        return line;
+    }
+
+    public Lyrics getLyrics() {
+        return this.lyrics;
+    }
+
+    /**
+     * Cut off the text with an ellipsis if it is wider than the given width
+     *
+     * @param context  The render context to measure the text with
+     * @param font     The font of the text
+     * @param text     The text to cut off
+     * @param maxWidth Maximum width in pixels
+     * @return The text itself if it fits or the longest prefix followed by an ellipsis
+     */
+    public static String truncate(IRenderContext context, Font font, String text, int maxWidth) {
+        if (context.getStringWidth(text, font) <= maxWidth) {
+            return text;
+        }
+
+        double ellipsisWidth = context.getStringWidth(ELLIPSIS, font);
+        if (ellipsisWidth > maxWidth) {
+            return "";
+        }
+
+        // Find the longest prefix that fits next to the ellipsis
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (context.getStringWidth(text.substring(0, middle), font) + ellipsisWidth <= maxWidth) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        // Don't split a surrogate pair
+        if (low > 0 && Character.isHighSurrogate(text.charAt(low - 1))) {
+            low--;
+        }
+
+        // Don't leave a space in front of the ellipsis
+        while (low > 0 && Character.isWhitespace(text.charAt(low - 1))) {
+            low--;
+        }
+
+        return text.substring(0, low) + ELLIPSIS;
+    }
+}
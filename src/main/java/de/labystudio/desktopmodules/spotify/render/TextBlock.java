@@ -0,0 +1,101 @@
+package de.labystudio.desktopmodules.spotify.render;
+
+import de.labystudio.desktopmodules.core.renderer.IRenderContext;
+import de.labystudio.desktopmodules.core.renderer.font.Font;
+import de.labystudio.desktopmodules.core.renderer.font.StringAlignment;
+import de.labystudio.desktopmodules.core.renderer.font.StringEffect;
+
+import java.awt.Color;
+
+/**
+ * Block of text lines that is drawn with the text renderer of the framework.
+ * <p>
+ * The lines, their alignment and their effect are kept between frames, so drawing an unchanged block
+ * doesn't create any strings. The block is not cached in an image: the render context has no offscreen
+ * target, so every line is drawn with the render context on every frame.
+ *
+ * @author LabyStudio
+ */
+public class TextBlock {
+
+    /**
+     * Space of the shadow at the right and bottom edge
+     */
+    public static final int SHADOW_OFFSET = 1;
+
+    private final Font font;
+    private final Color color;
+    private final int lineHeight;
+    private final String[] lines;
+
+    private StringEffect effect = StringEffect.SHADOW;
+    private StringAlignment alignment = StringAlignment.LEFT;
+    private int width;
+
+    /**
+     * Create a text block
+     *
+     * @param font       The font of the text
+     * @param color      The color of the text
+     * @param lines      Amount of lines
+     * @param lineHeight Distance between the baselines of two lines
+     */
+    public TextBlock(Font font, Color color, int lines, int lineHeight) {
+        this.font = font;
+        this.color = color;
+        this.lineHeight = lineHeight;
+        this.lines = new String[lines];
+    }
+
+    /**
+     * Set the text of a line
+     *
+     * @param index Index of the line
+     * @param text  The text of the line (Can be null for an empty line)
+     */
+    public void setLine(int index, String text) {
+        this.lines[index] = text;
+    }
+
+    /**
+     * Enable or disable the shadow of the text
+     *
+     * @param shadow Draw the shadow
+     */
+    public void setShadow(boolean shadow) {
+        this.effect = shadow ? StringEffect.SHADOW : StringEffect.NONE;
+    }
+
+    /**
+     * Set the bounds of the text block
+     *
+     * @param width        Available width of the lines, nothing is drawn if there is no space
+     * @param rightAligned The lines end at the anchor instead of starting at it
+     */
+    public void setBounds(int width, boolean rightAligned) {
+        this.width = width;
+        this.alignment = StringAlignment.from(rightAligned);
+    }
+
+    /**
+     * Draw the text block
+     *
+     * @param context   The render context
+     * @param x         The anchor of the lines, the left edge or the right edge if right aligned
+     * @param baselineY The baseline of the first line
+     */
+    public void draw(IRenderContext context, double x, double baselineY) {
+        if (this.width <= 0) {
+            return;
+        }
+
+        for (int i = 0; i < this.lines.length; i++) {
+            String line = this.lines[i];
+            if (line == null || line.isEmpty()) {
+                continue;
+            }
+
+            context.drawString(line, x, baselineY + i * this.lineHeight, this.alignment, this.effect, this.color, this.font);
+        }
+    }
+}
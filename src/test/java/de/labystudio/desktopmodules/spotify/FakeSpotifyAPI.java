@@ -0,0 +1,74 @@
+package de.labystudio.desktopmodules.spotify;
+
+import de.labystudio.spotifyapi.SpotifyAPI;
+import de.labystudio.spotifyapi.model.Track;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Spotify api with a playback that is set by the test.
+ * All methods that are not about the playback do nothing.
+ *
+ * @author LabyStudio
+ */
+public class FakeSpotifyAPI implements InvocationHandler {
+
+    private final SpotifyAPI api = (SpotifyAPI) Proxy.newProxyInstance(
+            SpotifyAPI.class.getClassLoader(),
+            new Class[]{SpotifyAPI.class},
+            this
+    );
+
+    public boolean connected = true;
+    public Track track;
+    public boolean playing = true;
+    public int position;
+
+    /**
+     * Get the api that reads the playback of this fake
+     *
+     * @return The api
+     */
+    public SpotifyAPI getAPI() {
+        return this.api;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "isInitialized":
+                return true;
+            case "isConnected":
+                return this.connected;
+            case "getTrack":
+                return this.track;
+            case "hasTrack":
+            case "hasPosition":
+                return this.track != null;
+            case "isPlaying":
+                return this.playing;
+            case "getPosition":
+                return this.position;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeSpotifyAPI";
+        }
+
+        // Builder style methods return the api itself
+        Class<?> type = method.getReturnType();
+        if (type.isInstance(proxy)) {
+            return proxy;
+        }
+        if (type.isPrimitive() && type != void.class) {
+            // Default value of the primitive type
+            return Array.get(Array.newInstance(type, 1), 0);
+        }
+        return null;
+    }
+}
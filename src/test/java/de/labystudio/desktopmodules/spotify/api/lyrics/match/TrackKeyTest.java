@@ -0,0 +1,44 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.match;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Splitting of artist credits into single artists
+ *
+ * @author LabyStudio
+ */
+public class TrackKeyTest {
+
+    @Test
+    public void splitsCommonSeparators() {
+        assertArtists("Artist A, Artist B & Artist C feat. Artist D", "artist a", "artist b", "artist c", "artist d");
+        assertArtists("The Weeknd ft. Daft Punk", "weeknd", "daft punk");
+    }
+
+    @Test
+    public void splitsLowercaseXBetweenCredits() {
+        assertArtists("Marshmello x Bastille", "marshmello", "bastille");
+    }
+
+    @Test
+    public void keepsArtistsEndingWithX() {
+        assertArtists("Lil Nas X & Billy Ray Cyrus", "lil nas x", "billy ray cyrus");
+        assertArtists("Lil Nas X", "lil nas x");
+        assertArtists("Lil Nas X feat. Cardi B", "lil nas x", "cardi b");
+    }
+
+    @Test
+    public void keepsArtistsStartingWithX() {
+        assertArtists("X Ambassadors", "x ambassadors");
+    }
+
+    private static void assertArtists(String credit, String... expected) {
+        TrackKey key = TrackKey.of("Song", credit, 0);
+        assertEquals(new HashSet<>(Arrays.asList(expected)), key.getArtists());
+    }
+}
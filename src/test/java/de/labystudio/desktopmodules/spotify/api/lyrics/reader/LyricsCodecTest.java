@@ -0,0 +1,95 @@
+package de.labystudio.desktopmodules.spotify.api.lyrics.reader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Encoding and decoding of the binary lyrics format
+ *
+ * @author LabyStudio
+ */
+public class LyricsCodecTest {
+
+    private static final Lyrics LYRICS = new Lyrics(
+            new long[]{0, 1500, 1500, 62000, 500000},
+            new String[]{"First line", "Chorus \u266A", "", "Chorus \u266A", "First line"}
+    );
+
+    @Test
+    public void roundTrip() throws IOException {
+        Lyrics decoded = LyricsCodec.decode(LyricsCodec.encode(LYRICS));
+
+        assertEquals(LYRICS.size(), decoded.size());
+        assertEquals(LYRICS.getDistinctLines(), decoded.getDistinctLines());
+        for (int i = 0; i < LYRICS.size(); i++) {
+            assertEquals(LYRICS.getOffset(i), decoded.getOffset(i));
+            assertEquals(LYRICS.getContent(i), decoded.getContent(i));
+        }
+    }
+
+    @Test
+    public void roundTripWithinArray() throws IOException {
+        byte[] encoded = LyricsCodec.encode(LYRICS);
+        byte[] data = new byte[encoded.length + 8];
+        System.arraycopy(encoded, 0, data, 4, encoded.length);
+
+        assertEquals(LYRICS.size(), LyricsCodec.decode(data, 4, encoded.length).size());
+    }
+
+    @Test
+    public void rejectsNegativeLength() {
+        // The amount of distinct lines is a ten byte varint of -1
+        assertRejected(new byte[]{'L', 'Y', 'C', LyricsCodec.VERSION,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01});
+    }
+
+    @Test
+    public void rejectsLengthLargerThanData() {
+        assertRejected(new byte[]{'L', 'Y', 'C', LyricsCodec.VERSION, (byte) 0xFF, (byte) 0xFF, 0x7F});
+    }
+
+    @Test
+    public void rejectsTruncatedData() {
+        byte[] encoded = LyricsCodec.encode(LYRICS);
+        for (int length = 0; length < encoded.length; length++) {
+            assertRejected(Arrays.copyOf(encoded, length));
+        }
+    }
+
+    @Test
+    public void rejectsOtherFormats() {
+        byte[] encoded = LyricsCodec.encode(LYRICS);
+
+        byte[] magic = encoded.clone();
+        magic[0] = 'X';
+        assertRejected(magic);
+
+        byte[] version = encoded.clone();
+        version[3] = LyricsCodec.VERSION + 1;
+        assertRejected(version);
+    }
+
+    @Test
+    public void rejectsInvalidContentIndex() {
+        byte[] encoded = LyricsCodec.encode(LYRICS);
+
+        // The content index of the last voice line points behind the content table
+        encoded[encoded.length - 1] = (byte) LYRICS.getDistinctLines();
+        assertRejected(encoded);
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            LyricsCodec.decode(data);
+            fail("Decoded malformed data " + Arrays.toString(data));
+        } catch (IOException expected) {
+            // Malformed data is reported as an I/O error
+        }
+    }
+}
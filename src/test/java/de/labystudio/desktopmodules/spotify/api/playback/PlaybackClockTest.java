@@ -0,0 +1,153 @@
+package de.labystudio.desktopmodules.spotify.api.playback;
+
+import de.labystudio.desktopmodules.spotify.FakeSpotifyAPI;
+import de.labystudio.spotifyapi.model.Track;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Interpolation of the playback position with a clock that only advances when the test says so
+ *
+ * @author LabyStudio
+ */
+public class PlaybackClockTest {
+
+    private final FakeSpotifyAPI spotify = new FakeSpotifyAPI();
+    private final FakeTime time = new FakeTime();
+    private final PlaybackState state = new PlaybackState();
+
+    private PlaybackClock clock;
+
+    @Before
+    public void setUp() {
+        this.spotify.track = new Track("id", "Track", "Artist", 200000);
+        this.spotify.position = 10000;
+        this.clock = new PlaybackClock(this.spotify.getAPI(), this.time);
+    }
+
+    @Test
+    public void interpolatesBetweenUpdates() {
+        assertEquals(10000, this.positionAfter(0));
+        assertEquals(10250, this.positionAfter(250));
+        assertEquals(10500, this.positionAfter(250));
+        assertTrue(this.state.isPlaying());
+    }
+
+    @Test
+    public void correctsDriftOverCorrectionTime() {
+        assertEquals(10000, this.positionAfter(0));
+
+        // Spotify is 200ms ahead of the interpolation
+        this.spotify.position = 11200;
+        assertEquals(11000, this.positionAfter(1000));
+
+        // The drift is compensated linearly within 500ms instead of jumping
+        assertEquals(11350, this.positionAfter(250));
+        assertEquals(11700, this.positionAfter(250));
+
+        // Afterwards the position advances in real time again
+        assertEquals(12200, this.positionAfter(500));
+        assertEquals(0, this.state.getSeekCount());
+    }
+
+    @Test
+    public void detectsSeekAboveThreshold() {
+        assertEquals(10000, this.positionAfter(0));
+
+        // A difference of up to 1.5 seconds is drift
+        this.spotify.position = 12400;
+        this.positionAfter(1000);
+        assertEquals(0, this.state.getSeekCount());
+
+        // Forward seek
+        this.spotify.position = 60000;
+        assertEquals(60000, this.positionAfter(100));
+        assertEquals(1, this.state.getSeekCount());
+
+        // Backward seek, the only case the position may go backwards
+        this.spotify.position = 5000;
+        assertEquals(5000, this.positionAfter(100));
+        assertEquals(2, this.state.getSeekCount());
+    }
+
+    @Test
+    public void neverGoesBackwardsWhilePlaying() {
+        Random random = new Random(0);
+        long previous = this.positionAfter(0);
+        long reported = this.spotify.position;
+
+        for (int i = 0; i < 1000; i++) {
+            // Spotify reports a position with up to a second of jitter every few frames
+            if (i % 10 == 0) {
+                reported += 160;
+                this.spotify.position = (int) (reported + random.nextInt(2000) - 1000);
+            }
+
+            long position = this.positionAfter(16);
+            assertTrue("Position went back from " + previous + " to " + position, position >= previous);
+            previous = position;
+        }
+        assertEquals(0, this.state.getSeekCount());
+    }
+
+    @Test
+    public void pauseFreezesPosition() {
+        assertEquals(10000, this.positionAfter(0));
+        assertEquals(10500, this.positionAfter(500));
+
+        this.spotify.playing = false;
+        this.spotify.position = 10600;
+        assertEquals(10600, this.positionAfter(100));
+        assertFalse(this.state.isPlaying());
+
+        // Time passes but the position stays
+        assertEquals(10600, this.positionAfter(5000));
+        assertEquals(10600, this.positionAfter(5000));
+
+        // Resume from the paused position
+        this.spotify.playing = true;
+        assertEquals(10600, this.positionAfter(100));
+        assertEquals(10850, this.positionAfter(250));
+        assertEquals(0, this.state.getSeekCount());
+    }
+
+    @Test
+    public void stopsAtEndOfTrack() {
+        this.spotify.position = 199000;
+        this.clock = new PlaybackClock(this.spotify.getAPI(), this.time);
+
+        assertEquals(199000, this.positionAfter(0));
+        assertEquals(200000, this.positionAfter(5000));
+    }
+
+    /**
+     * Advance the clock and take a snapshot
+     *
+     * @param millis Time to advance in milliseconds
+     * @return The interpolated position in milliseconds
+     */
+    private long positionAfter(long millis) {
+        this.time.nanos += millis * 1000000L;
+        this.clock.snapshot(this.state);
+        return this.state.getPosition();
+    }
+
+    /**
+     * Clock that is advanced manually
+     */
+    private static class FakeTime implements TimeSource {
+
+        private long nanos;
+
+        @Override
+        public long nanoTime() {
+            return this.nanos;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package de.labystudio.desktopmodules.spotify.modules;
+
+import de.labystudio.desktopmodules.core.renderer.IRenderContext;
+import de.labystudio.desktopmodules.core.renderer.font.Font;
+import de.labystudio.desktopmodules.core.renderer.font.StringAlignment;
+import de.labystudio.desktopmodules.core.renderer.font.StringEffect;
+import de.labystudio.desktopmodules.spotify.FakeSpotifyAPI;
+import de.labystudio.desktopmodules.spotify.SpotifyAddon;
+import de.labystudio.desktopmodules.spotify.api.playback.PlaybackClock;
+import de.labystudio.spotifyapi.SpotifyAPI;
+import de.labystudio.spotifyapi.model.Track;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders frames of the Spotify module with an unchanged playback and checks that they don't allocate
+ *
+ * @author LabyStudio
+ */
+public class SpotifyModuleAllocationTest {
+
+    private static final int WARM_UP_FRAMES = 200000;
+    private static final int FRAMES = 100000;
+
+    private static final String[] TEXTURES = {
+            "textureSpotify",
+            "textureControlPlay",
+            "textureControlPause",
+            "textureControlNext",
+            "textureControlPrevious"
+    };
+
+    @Test
+    public void renderDoesNotAllocate() throws Exception {
+        assertEquals(0, this.measureBytesPerFrame(false));
+    }
+
+    @Test
+    public void renderWithControlsDoesNotAllocate() throws Exception {
+        assertEquals(0, this.measureBytesPerFrame(true));
+    }
+
+    /**
+     * Render the module until the JIT compiled it and measure the allocations of the following frames
+     *
+     * @param mouseOver Render the extended module with the controls
+     * @return Average allocated bytes per frame
+     */
+    private long measureBytesPerFrame(boolean mouseOver) throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("Allocation measurement is not supported", threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        FakeSpotifyAPI spotify = new FakeSpotifyAPI();
+        spotify.track = new Track("id", "A track name that is longer than the maximum text length", "Artist", 200000);
+        spotify.position = 100;
+
+        // The clock doesn't advance, so every frame shows the same playback
+        PlaybackClock clock = new PlaybackClock(spotify.getAPI(), () -> 0L);
+        TestModule module = new TestModule(new TestAddon(spotify.getAPI(), clock), mouseOver);
+        IRenderContext context = new NoOpRenderContext();
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            module.onRender(context, 300, 80, 0, 0);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < FRAMES; i++) {
+            module.onRender(context, 300, 80, 0, 0);
+        }
+        return (threadBean.getThreadAllocatedBytes(threadId) - start) / FRAMES;
+    }
+
+    /**
+     * Addon with a fake api that is never initialized
+     */
+    private static class TestAddon extends SpotifyAddon {
+
+        private final SpotifyAPI api;
+        private final PlaybackClock clock;
+
+        private TestAddon(SpotifyAPI api, PlaybackClock clock) {
+            this.api = api;
+            this.clock = clock;
+        }
+
+        @Override
+        public SpotifyAPI getSpotifyAPI() {
+            return this.api;
+        }
+
+        @Override
+        public PlaybackClock getPlaybackClock() {
+            return this.clock;
+        }
+    }
+
+    /**
+     * Module with blank textures that is attached to the given addon
+     */
+    private static class TestModule extends SpotifyModule {
+
+        private final boolean mouseOver;
+
+        private TestModule(SpotifyAddon addon, boolean mouseOver) throws Exception {
+            this.addon = addon;
+            this.mouseOver = mouseOver;
+
+            BufferedImage texture = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+            for (String name : TEXTURES) {
+                Field field = SpotifyModule.class.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(this, texture);
+            }
+        }
+
+        @Override
+        public boolean isMouseOver() {
+            return this.mouseOver;
+        }
+    }
+
+    /**
+     * Render context that draws nothing
+     */
+    private static class NoOpRenderContext implements IRenderContext {
+
+        @Override
+        public void drawImage(BufferedImage image, double x, double y, double width, double height) {
+        }
+
+        @Override
+        public void drawImage(BufferedImage image, double x, double y) {
+        }
+
+        @Override
+        public void drawString(String text, double x, double y, StringAlignment alignment, StringEffect effect, Color color, Font font) {
+        }
+
+        @Override
+        public void drawRectWH(double x, double y, double width, double height, Color color) {
+        }
+
+        @Override
+        public void drawGradientRect(double left, double top, double right, double bottom,
+                                     Color startColor, double startX, double startY,
+                                     Color endColor, double endX, double endY) {
+        }
+
+        @Override
+        public double getStringWidth(String text, Font font) {
+            return text.length() * 6;
+        }
+    }
+}